@@ -33,24 +33,63 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Path;
 
+import com.github.sbridges.pasta.io.MappedPstIo;
 import com.github.sbridges.pasta.io.PstFileIo;
 import com.github.sbridges.pasta.io.PstIo;
 import com.github.sbridges.pasta.model.Header;
+import com.github.sbridges.pasta.model.Verifier;
 import com.github.sbridges.pasta.model.ndb.BBT;
 import com.github.sbridges.pasta.model.ndb.NBT;
+import com.github.sbridges.pasta.model.ndb.NDBCache;
 
+/**
+ * Reads a pst file.<P>
+ * 
+ * A PstReader, and its NBT and BBT, may be shared by several threads.
+ * The objects built on top of it (PC, TC, Folder, Message etc) are not 
+ * thread safe, each thread should create its own.
+ */
 public class PstReader implements Closeable {
 
     private final PstIo io;
     private final Header header;
+    private final NDBCache cache;
+    private final Verifier verifier;
     
     public PstReader(Path pstFile) throws IOException {
-        io = new PstFileIo(pstFile);
-        header = new Header(io);
+        this(pstFile, PstReaderOptions.defaults());
+    }
+    
+    public PstReader(Path pstFile, PstReaderOptions options) throws IOException {
+        this(open(pstFile, options), options);
+    }
+    
+    /**
+     * Read from io, io will be closed when this reader is closed 
+     */
+    public PstReader(PstIo io, PstReaderOptions options) {
+        this.io = io;
+        this.cache = new NDBCache(options.getCacheSizeBytes());
+        this.verifier = new Verifier(options.getVerification(), options.getVerificationSampleRate(), io.size());
+        this.header = new Header(io, cache, verifier);
+        if(options.isIndexBBT()) {
+            header.getRoot().getBBT().buildIndex();
+        }
+        if(options.isIndexNBT()) {
+            header.getRoot().getNBT().buildIndex();
+        }
+    }
+    
+    private static PstIo open(Path pstFile, PstReaderOptions options) throws IOException {
+        if(options.isMemoryMapped()) {
+            return new MappedPstIo(pstFile);
+        }
+        return new PstFileIo(pstFile);
     }
 
     @Override
     public void close() throws IOException {
+        cache.clear();
         io.close();
     }
     
@@ -65,4 +104,18 @@ public class PstReader implements Closeable {
     public PstIo getIo() {
         return io;
     }
+    
+    /**
+     * The cache of decoded pages and blocks shared by the NBT and BBT 
+     */
+    public NDBCache getCache() {
+        return cache;
+    }
+    
+    /**
+     * Decides which pages and blocks are verified as they are decoded 
+     */
+    public Verifier getVerifier() {
+        return verifier;
+    }
 }
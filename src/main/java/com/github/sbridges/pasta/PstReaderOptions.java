@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+
+package com.github.sbridges.pasta;
+
+import com.github.sbridges.pasta.model.Verification;
+
+/**
+ * Options used when opening a PstReader.<P>
+ * 
+ * Instances are immutable, the with methods return a modified copy.
+ */
+public class PstReaderOptions {
+
+    private static final PstReaderOptions DEFAULTS = new PstReaderOptions(
+            false, 8 * 1024 * 1024, false, false, Verification.STRICT, 64);
+    
+    //read the file through memory mapped buffers rather than a FileChannel
+    private final boolean memoryMapped;
+    //max size of the decoded pages and blocks cached by the reader, 0 to disable
+    private final long cacheSizeBytes;
+    //read the whole BBT into memory when the reader is opened
+    private final boolean indexBBT;
+    //read the whole NBT into memory when the reader is opened
+    private final boolean indexNBT;
+    //which pages and blocks have their crc, signature and structure checked
+    private final Verification verification;
+    //for SAMPLED verification, check 1 in verificationSampleRate pages and blocks
+    private final int verificationSampleRate;
+    
+    private PstReaderOptions(
+            boolean memoryMapped, 
+            long cacheSizeBytes, 
+            boolean indexBBT, 
+            boolean indexNBT,
+            Verification verification,
+            int verificationSampleRate) {
+        if(cacheSizeBytes < 0) {
+            throw new IllegalArgumentException("invalid cacheSizeBytes:" + cacheSizeBytes);
+        }
+        if(verification == null) {
+            throw new NullPointerException("verification");
+        }
+        if(verificationSampleRate < 1) {
+            throw new IllegalArgumentException("invalid verificationSampleRate:" + verificationSampleRate);
+        }
+        this.memoryMapped = memoryMapped;
+        this.cacheSizeBytes = cacheSizeBytes;
+        this.indexBBT = indexBBT;
+        this.indexNBT = indexNBT;
+        this.verification = verification;
+        this.verificationSampleRate = verificationSampleRate;
+    }
+    
+    public static PstReaderOptions defaults() {
+        return DEFAULTS;
+    }
+    
+    public PstReaderOptions withMemoryMapped(boolean memoryMapped) {
+        return new PstReaderOptions(memoryMapped, cacheSizeBytes, indexBBT, indexNBT, verification, verificationSampleRate);
+    }
+    
+    public PstReaderOptions withCacheSizeBytes(long cacheSizeBytes) {
+        return new PstReaderOptions(memoryMapped, cacheSizeBytes, indexBBT, indexNBT, verification, verificationSampleRate);
+    }
+    
+    public PstReaderOptions withIndexBBT(boolean indexBBT) {
+        return new PstReaderOptions(memoryMapped, cacheSizeBytes, indexBBT, indexNBT, verification, verificationSampleRate);
+    }
+
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+    
+    public long getCacheSizeBytes() {
+        return cacheSizeBytes;
+    }
+    
+    public PstReaderOptions withIndexNBT(boolean indexNBT) {
+        return new PstReaderOptions(memoryMapped, cacheSizeBytes, indexBBT, indexNBT, verification, verificationSampleRate);
+    }
+    
+    public boolean isIndexBBT() {
+        return indexBBT;
+    }
+    
+    public boolean isIndexNBT() {
+        return indexNBT;
+    }
+    
+    public PstReaderOptions withVerification(Verification verification) {
+        return new PstReaderOptions(memoryMapped, cacheSizeBytes, indexBBT, indexNBT, verification, verificationSampleRate);
+    }
+    
+    public PstReaderOptions withVerificationSampleRate(int verificationSampleRate) {
+        return new PstReaderOptions(memoryMapped, cacheSizeBytes, indexBBT, indexNBT, verification, verificationSampleRate);
+    }
+    
+    public Verification getVerification() {
+        return verification;
+    }
+    
+    public int getVerificationSampleRate() {
+        return verificationSampleRate;
+    }
+
+    @Override
+    public String toString() {
+        return "PstReaderOptions [memoryMapped=" + memoryMapped + ", cacheSizeBytes=" + cacheSizeBytes
+                + ", indexBBT=" + indexBBT + ", indexNBT=" + indexNBT 
+                + ", verification=" + verification + ", verificationSampleRate=" + verificationSampleRate + "]";
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+
+package com.github.sbridges.pasta.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.UUID;
+
+import com.github.sbridges.pasta.util.ByteUtils;
+import com.github.sbridges.pasta.util.CRC;
+
+/**
+ * A PstIo backed by a ByteBuffer, typically a region of a memory mapped file.<P>
+ * 
+ * Slices share the underlying buffer, no bytes are copied until read(...) is called.
+ */
+public class ByteBufferPstIo implements PstIo {
+
+    private final PstIo root;
+    //the index in contents the next read will occur at
+    private int position;
+    private final ByteBuffer contents;
+    private boolean closed = false;
+    
+    /**
+     * contents is used from index 0 to contents.limit(), 
+     * the position of contents is ignored 
+     */
+    public ByteBufferPstIo(PstIo root, ByteBuffer contents) {
+        this.contents = contents.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.contents.position(0);
+        this.root = root;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+    }
+
+    @Override
+    public void seek(long position) {
+        assertNotClosed();
+        if(position < 0 || position > contents.limit()) {
+            throw new IllegalArgumentException("invalid positin:" + position + " length:" + contents.limit());
+        }
+        this.position = (int) position; 
+    }
+
+    @Override
+    public byte[] read(int length) {
+        assertNotClosed();
+        if(position + length > contents.limit()) {
+            throw new IllegalStateException("reading past end");
+        }
+        byte[] answer = read(position, length);
+        position += length;
+        return answer;
+    }
+
+    @Override
+    public byte[] read(long position, int length) {
+        assertNotClosed();
+        if(position < 0 || position + length > contents.limit()) {
+            throw new IllegalArgumentException("position:" + position + " this.position:" + this.position);
+        }
+        return copy((int) position, length);
+    }
+    
+    @Override
+    public byte readByte() {
+        return contents.get(advance(1));
+    }
+    
+    @Override
+    public byte readByte(long position) {
+        return contents.get(indexOf(position, 1));
+    }
+    
+    @Override
+    public int readW() {
+        return contents.getShort(advance(2)) & 0xFFFF;
+    }
+    
+    @Override
+    public int readW(long position) {
+        return contents.getShort(indexOf(position, 2)) & 0xFFFF;
+    }
+    
+    @Override
+    public int readDw() {
+        return contents.getInt(advance(4));
+    }
+    
+    @Override
+    public int readDw(long position) {
+        return contents.getInt(indexOf(position, 4));
+    }
+    
+    @Override
+    public long readLong() {
+        return contents.getLong(advance(8));
+    }
+    
+    @Override
+    public long readLong(long position) {
+        return contents.getLong(indexOf(position, 8));
+    }
+    
+    @Override
+    public UUID readUUID() {
+        return uuidAt(contents, advance(16));
+    }
+    
+    @Override
+    public UUID readUUID(long position) {
+        return uuidAt(contents, indexOf(position, 16));
+    }
+    
+    /**
+     * read a GUID from a little endian buffer
+     */
+    static UUID uuidAt(ByteBuffer contents, int index) {
+        return ByteUtils.guidToUUID(
+                contents.getInt(index),
+                contents.getShort(index + 4),
+                contents.getShort(index + 6),
+                Long.reverseBytes(contents.getLong(index + 8)));
+    }
+    
+    /**
+     * @return the index of the next count bytes, moving position past them
+     */
+    private int advance(int count) {
+        assertNotClosed();
+        if(position + count > contents.limit()) {
+            throw new IllegalStateException("reading past end");
+        }
+        int answer = position;
+        position += count;
+        return answer;
+    }
+    
+    private int indexOf(long position, int count) {
+        assertNotClosed();
+        if(position < 0 || position + count > contents.limit()) {
+            throw new IllegalArgumentException("position:" + position + " this.position:" + this.position);
+        }
+        return (int) position;
+    }
+    
+    @Override
+    public int computeCRC(long position, int length) {
+        ByteBuffer range = contents.duplicate();
+        range.position(indexOf(position, length));
+        range.limit((int) position + length);
+        return CRC.computeCRC(range);
+    }
+    
+    @Override
+    public PstIo slice(long position, int length) {
+        assertNotClosed();
+        if(position < 0 || length < 0 || position + length > contents.limit()) {
+            throw new IllegalArgumentException("position:" + position + " length:" + length + " size:" + size());
+        }
+        ByteBuffer answer = contents.duplicate();
+        answer.position((int) position);
+        answer.limit((int) position + length);
+        return new ByteBufferPstIo(root, answer.slice());
+    }
+    
+    @Override
+    public PstIo sliceAndSkip(int length) {
+        PstIo answer = slice(position, length);
+        skip(length);
+        return answer;
+    }
+    
+    @Override
+    public boolean isExhausted() {
+        return position == contents.limit();
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+    
+    @Override
+    public long size() {
+        return contents.limit();
+    }
+    
+    @Override
+    public PstIo getRoot() {
+        return root;
+    }
+
+    private byte[] copy(int position, int length) {
+        byte[] answer = new byte[length];
+        ByteBuffer source = contents.duplicate();
+        source.position(position);
+        source.get(answer);
+        return answer;
+    }
+    
+    private void assertNotClosed() {
+        if(closed) {
+            throw new IllegalStateException("already closed");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ByteBufferPstIo [root=" + root + ", position=" + position + ", size=" + size() 
+                + ", contents=" + ByteUtils.bytesToHex(copy(0, contents.limit())) + ", closed="
+                + closed + "]";
+    }
+    
+}
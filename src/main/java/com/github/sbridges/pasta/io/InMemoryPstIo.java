@@ -31,19 +31,39 @@ package com.github.sbridges.pasta.io;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.UUID;
 
 import com.github.sbridges.pasta.util.ByteUtils;
+import com.github.sbridges.pasta.util.CRC;
 
+/**
+ * A PstIo backed by a byte[].<P>
+ * 
+ * Slices are views over the same byte[], with their own 
+ * offset, length and position, no bytes are copied until read(...) is called. 
+ */
 public class InMemoryPstIo implements PstIo {
 
     private final PstIo root;
-    //the index in contents the next read will occur at
+    //the index (relative to offset) the next read will occur at
     private int position;
     private final byte[] contents;
+    //the range of contents this io covers
+    private final int offset;
+    private final int length;
     private boolean closed = false;
     
     public InMemoryPstIo(PstIo root, byte[] contents) {
+        this(root, contents, 0, contents.length);
+    }
+    
+    public InMemoryPstIo(PstIo root, byte[] contents, int offset, int length) {
+        if(offset < 0 || length < 0 || offset + length > contents.length) {
+            throw new IllegalArgumentException("invalid offset:" + offset + " length:" + length + " contents.length:" + contents.length);
+        }
         this.contents = contents;
+        this.offset = offset;
+        this.length = length;
         this.root = root;
     }
 
@@ -55,8 +75,8 @@ public class InMemoryPstIo implements PstIo {
     @Override
     public void seek(long position) {
         assertNotClosed();
-        if(position < 0 || position > contents.length) {
-            throw new IllegalArgumentException("invalid positin:" + position + " length:" + contents.length);
+        if(position < 0 || position > length) {
+            throw new IllegalArgumentException("invalid positin:" + position + " length:" + length);
         }
         this.position = (int) position; 
         
@@ -65,10 +85,10 @@ public class InMemoryPstIo implements PstIo {
     @Override
     public byte[] read(int length) {
         assertNotClosed();
-        if(position + length > contents.length) {
+        if(position + length > this.length) {
             throw new IllegalStateException("reading past end");
         }
-        byte[] answer = Arrays.copyOfRange(contents, position, position + length);
+        byte[] answer = Arrays.copyOfRange(contents, offset + position, offset + position + length);
         position += length;
         return answer;
     }
@@ -76,15 +96,119 @@ public class InMemoryPstIo implements PstIo {
     @Override
     public byte[] read(long position, int length) {
         assertNotClosed();
-        if(position + length > contents.length) {
+        if(position < 0 || position + length > this.length) {
             throw new IllegalArgumentException("position:" + position + " this.position:" + this.position);
         }
-        return Arrays.copyOfRange(contents, (int) position, (int) position + length);
+        return Arrays.copyOfRange(contents, offset + (int) position, offset + (int) position + length);
+    }
+    
+    @Override
+    public byte readByte() {
+        return contents[advance(1)];
+    }
+    
+    @Override
+    public byte readByte(long position) {
+        return contents[indexOf(position, 1)];
+    }
+    
+    @Override
+    public int readW() {
+        return ByteUtils.bytesToUnsignedShort(contents, advance(2));
+    }
+    
+    @Override
+    public int readW(long position) {
+        return ByteUtils.bytesToUnsignedShort(contents, indexOf(position, 2));
+    }
+    
+    @Override
+    public int readDw() {
+        return ByteUtils.bytesToInt(contents, advance(4));
+    }
+    
+    @Override
+    public int readDw(long position) {
+        return ByteUtils.bytesToInt(contents, indexOf(position, 4));
+    }
+    
+    @Override
+    public long readLong() {
+        return ByteUtils.bytesToLong(contents, advance(8));
+    }
+    
+    @Override
+    public long readLong(long position) {
+        return ByteUtils.bytesToLong(contents, indexOf(position, 8));
+    }
+    
+    @Override
+    public UUID readUUID() {
+        return uuidAt(advance(16));
+    }
+    
+    @Override
+    public UUID readUUID(long position) {
+        return uuidAt(indexOf(position, 16));
+    }
+    
+    @Override
+    public int computeCRC(long position, int length) {
+        return CRC.computeCRC(contents, indexOf(position, length), length);
+    }
+    
+    private UUID uuidAt(int index) {
+        return ByteUtils.guidToUUID(
+                ByteUtils.bytesToInt(contents, index),
+                ByteUtils.bytesToUnsignedShort(contents, index + 4),
+                ByteUtils.bytesToUnsignedShort(contents, index + 6),
+                Long.reverseBytes(ByteUtils.bytesToLong(contents, index + 8)));
+    }
+    
+    /**
+     * @return the index in contents of the next count bytes, 
+     * moving position past them
+     */
+    private int advance(int count) {
+        assertNotClosed();
+        if(position + count > this.length) {
+            throw new IllegalStateException("reading past end");
+        }
+        int answer = offset + position;
+        position += count;
+        return answer;
+    }
+    
+    /**
+     * @return the index in contents of the count bytes at position 
+     */
+    private int indexOf(long position, int count) {
+        assertNotClosed();
+        if(position < 0 || position + count > this.length) {
+            throw new IllegalArgumentException("position:" + position + " this.position:" + this.position);
+        }
+        return offset + (int) position;
+    }
+    
+    @Override
+    public PstIo slice(long position, int length) {
+        assertNotClosed();
+        if(position < 0 || length < 0 || position + length > this.length) {
+            throw new IllegalArgumentException("position:" + position + " length:" + length + " size:" + this.length);
+        }
+        return new InMemoryPstIo(root, contents, offset + (int) position, length);
+    }
+    
+    @Override
+    public PstIo sliceAndSkip(int length) {
+        PstIo answer = slice(position, length);
+        skip(length);
+        return answer;
     }
     
     @Override
     public boolean isExhausted() {
-        return position == contents.length;
+        return position == length;
     }
 
     @Override
@@ -94,7 +218,7 @@ public class InMemoryPstIo implements PstIo {
     
     @Override
     public long size() {
-        return contents.length;
+        return length;
     }
     
     @Override
@@ -112,13 +236,8 @@ public class InMemoryPstIo implements PstIo {
     @Override
     public String toString() {
         return "InMemoryPstIo [root=" + root + ", position=" + position + ", size=" + size() 
-                + ", contents=" + ByteUtils.bytesToHex(contents) + ", closed="
+                + ", contents=" + ByteUtils.bytesToHex(Arrays.copyOfRange(contents, offset, offset + length)) + ", closed="
                 + closed + "]";
     }
     
-    
-
-
-
-    
 }
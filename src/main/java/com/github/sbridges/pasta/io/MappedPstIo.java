@@ -0,0 +1,294 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+
+package com.github.sbridges.pasta.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Reads a PST file through memory mapped buffers.<P>
+ * 
+ * A single MappedByteBuffer can address at most 2 GB, so the file is 
+ * mapped in fixed size segments.  Each segment also maps a small overlap 
+ * past its end, so that a page or block which straddles a segment boundary
+ * can still be sliced without copying.<P>
+ * 
+ * Slices are views over the mapped segments, bytes are only copied 
+ * when read(...) is called.  The segments are never modified, so 
+ * positional reads and slices are safe to use from several threads.
+ */
+public class MappedPstIo implements Closeable, PstIo {
+    
+    //1 GB
+    static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+    //larger than any page or block
+    static final int DEFAULT_SEGMENT_OVERLAP = 64 * 1024;
+    
+    private final FileChannel input;
+    private final Path path;
+    private final long size;
+    private final int segmentSize;
+    private final MappedByteBuffer[] segments;
+    private long position;
+    private boolean closed = false;
+
+    public MappedPstIo(Path path) throws IOException {
+        this(path, DEFAULT_SEGMENT_SIZE, DEFAULT_SEGMENT_OVERLAP);
+    }
+    
+    MappedPstIo(Path path, int segmentSize, int segmentOverlap) throws IOException {
+        this.path = path;
+        this.segmentSize = segmentSize;
+        this.input = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.size = input.size();
+            int segmentCount = (int) ((size + segmentSize - 1) / segmentSize);
+            this.segments = new MappedByteBuffer[segmentCount];
+            for(int i = 0; i < segmentCount; i++) {
+                long start = ((long) i) * segmentSize;
+                long length = Math.min(((long) segmentSize) + segmentOverlap, size - start);
+                segments[i] = input.map(MapMode.READ_ONLY, start, length);
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch(IOException | RuntimeException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        //the mapped segments are released when they are garbage collected
+        closed = true;
+        input.close();
+    }
+    
+    @Override
+    public void seek(long position) {
+        assertNotClosed();
+        if(position < 0 || position > size) {
+            throw new IllegalArgumentException("invalid position:" + position + " size:" + size);
+        }
+        this.position = position;
+    }
+    
+    @Override
+    public byte[] read(int length) {
+        byte[] answer = read(position, length);
+        position += length;
+        return answer;
+    }
+    
+    @Override
+    public byte[] read(long position, int length) {
+        assertInBounds(position, length);
+        byte[] answer = new byte[length];
+        int copied = 0;
+        while(copied < length) {
+            long current = position + copied;
+            ByteBuffer segment = segments[(int) (current / segmentSize)].duplicate();
+            segment.position((int) (current % segmentSize));
+            int toCopy = Math.min(length - copied, segment.remaining());
+            segment.get(answer, copied, toCopy);
+            copied += toCopy;
+        }
+        return answer;
+    }
+    
+    /*
+     * The primitive readers decode straight from the mapped segment 
+     * when the value fits in the segment (and its overlap), which 
+     * is always true unless the overlap is smaller than 16 bytes.
+     */
+    
+    @Override
+    public byte readByte(long position) {
+        assertInBounds(position, 1);
+        return segmentFor(position).get((int) (position % segmentSize));
+    }
+    
+    @Override
+    public byte readByte() {
+        byte answer = readByte(position);
+        position++;
+        return answer;
+    }
+    
+    @Override
+    public int readW(long position) {
+        assertInBounds(position, 2);
+        MappedByteBuffer segment = segmentFor(position);
+        int offset = (int) (position % segmentSize);
+        if(offset + 2 > segment.limit()) {
+            return PstIo.super.readW(position);
+        }
+        return segment.getShort(offset) & 0xFFFF;
+    }
+    
+    @Override
+    public int readW() {
+        int answer = readW(position);
+        position += 2;
+        return answer;
+    }
+    
+    @Override
+    public int readDw(long position) {
+        assertInBounds(position, 4);
+        MappedByteBuffer segment = segmentFor(position);
+        int offset = (int) (position % segmentSize);
+        if(offset + 4 > segment.limit()) {
+            return PstIo.super.readDw(position);
+        }
+        return segment.getInt(offset);
+    }
+    
+    @Override
+    public int readDw() {
+        int answer = readDw(position);
+        position += 4;
+        return answer;
+    }
+    
+    @Override
+    public long readLong(long position) {
+        assertInBounds(position, 8);
+        MappedByteBuffer segment = segmentFor(position);
+        int offset = (int) (position % segmentSize);
+        if(offset + 8 > segment.limit()) {
+            return PstIo.super.readLong(position);
+        }
+        return segment.getLong(offset);
+    }
+    
+    @Override
+    public long readLong() {
+        long answer = readLong(position);
+        position += 8;
+        return answer;
+    }
+    
+    @Override
+    public UUID readUUID(long position) {
+        assertInBounds(position, 16);
+        MappedByteBuffer segment = segmentFor(position);
+        int offset = (int) (position % segmentSize);
+        if(offset + 16 > segment.limit()) {
+            return PstIo.super.readUUID(position);
+        }
+        return ByteBufferPstIo.uuidAt(segment, offset);
+    }
+    
+    @Override
+    public UUID readUUID() {
+        UUID answer = readUUID(position);
+        position += 16;
+        return answer;
+    }
+    
+    private MappedByteBuffer segmentFor(long position) {
+        return segments[(int) (position / segmentSize)];
+    }
+    
+    @Override
+    public PstIo slice(long position, int length) {
+        assertInBounds(position, length);
+        MappedByteBuffer segment = segmentFor(position);
+        int offset = (int) (position % segmentSize);
+        if(offset + length > segment.limit()) {
+            //longer than the overlap, we can't share the mapped bytes
+            return new InMemoryPstIo(this, read(position, length));
+        }
+        ByteBuffer answer = segment.duplicate();
+        answer.position(offset);
+        answer.limit(offset + length);
+        return new ByteBufferPstIo(this, answer.slice());
+    }
+    
+    @Override
+    public int computeCRC(long position, int length) {
+        //slices share the mapped bytes
+        return slice(position, length).computeCRC(0, length);
+    }
+    
+    @Override
+    public PstIo sliceAndSkip(int length) {
+        PstIo answer = slice(position, length);
+        skip(length);
+        return answer;
+    }
+
+    @Override
+    public boolean isExhausted() {
+        return position == size;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+    
+    @Override
+    public long size() {
+        return size;
+    }
+    
+    @Override
+    public PstIo getRoot() {
+        return this;
+    }
+    
+    private void assertInBounds(long position, int length) {
+        assertNotClosed();
+        if(position < 0 || length < 0 || position + length > size) {
+            throw new IllegalArgumentException("invalid position:" + position + " length:" + length + " size:" + size);
+        }
+    }
+    
+    private void assertNotClosed() {
+        if(closed) {
+            throw new IllegalStateException("already closed");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MappedPstIo [path=" + path + "]";
+    }
+    
+}
@@ -38,12 +38,21 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 
 /**
- * Methods to read from a PST file        
+ * Methods to read from a PST file.<P>
+ * 
+ * All reads are positional reads of the FileChannel, so this may be shared 
+ * by threads which read using read(position, length) or slices.  The position
+ * used by read(length) is held by this object, not the channel, but is 
+ * not synchronized, so only one thread should use it.<P>
+ * 
+ * Note that interrupting a thread blocked in a read closes the channel
+ * for all threads.
  */
 public class PstFileIo implements Closeable, PstIo {
     
     private final FileChannel input;
     private final Path path;
+    private long position;
 
     public PstFileIo(Path path) throws IOException {
         this.path = path;
@@ -57,33 +66,17 @@ public class PstFileIo implements Closeable, PstIo {
     
     @Override
     public void seek(long position) {
-        try {
-            input.position(position);
-        } catch (IOException e) {
-            throw new IllegalStateException(e);
+        if(position < 0 || position > size()) {
+            throw new IllegalArgumentException("invalid position:" + position + " size:" + size());
         }
+        this.position = position;
     }
     
     @Override
     public byte[] read(int length) {
-        byte[] answer = new byte[length];
-        ByteBuffer b = ByteBuffer.wrap(answer);
-        try {
-            int remaining = length;
-            while(remaining > 0) {
-                int read = input.read(b);
-                if(read == -1) {
-                    throw new EOFException();
-                }
-                if(read == 0) {
-                    throw new IOException("no bytes read");
-                }
-                remaining -= read;
-            }
-            return answer;
-        } catch (IOException e) {
-            throw new IllegalStateException(e);
-        }
+        byte[] answer = read(position, length);
+        position += length;
+        return answer;
     }
     
     @Override
@@ -110,20 +103,12 @@ public class PstFileIo implements Closeable, PstIo {
 
     @Override
     public boolean isExhausted() {
-        try {
-            return input.size() == input.position();
-        } catch (IOException e) {
-            throw new IllegalStateException(e);
-        }
+        return size() == position;
     }
 
     @Override
     public long getPosition() {
-        try {
-            return input.position();
-        } catch (IOException e) {
-            throw new IllegalStateException(e);
-        }
+        return position;
     }
     
     @Override
@@ -30,13 +30,22 @@
 package com.github.sbridges.pasta.io;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.Iterator;
 import java.util.UUID;
 
 import com.github.sbridges.pasta.util.ByteUtils;
+import com.github.sbridges.pasta.util.CRC;
 
+/**
+ * Random access to the bytes of a pst file, or a slice of one.<P>
+ * 
+ * Reads which take a position, and slice(...), do not use or change the
+ * position of this io, and are safe to call from several threads as long 
+ * as nothing writes the underlying bytes.  Relative reads (read(length), 
+ * readDw(), seek(...) etc) use a position held by this object, so a 
+ * PstIo which is shared should only be read positionally, each caller 
+ * taking its own slice if it wants a cursor. 
+ */
 public interface PstIo {
 
     /**
@@ -93,11 +102,23 @@ public interface PstIo {
         };
     }
     
+    /*
+     * The primitive readers below decode little endian values.
+     * 
+     * The defaults are implemented in terms of read(...) and allocate
+     * a byte[] for each value, implementations backed by memory 
+     * override them to decode directly from their backing storage.
+     */
+    
     default long readLong() {
         byte[] bytes = read(8);
         return ByteUtils.bytesToLong(bytes, 0);
     }
     
+    default long readLong(long position) {
+        return ByteUtils.bytesToLong(read(position, 8), 0);
+    }
+    
     
     default void skip(int count) {
         seek(count + getPosition());
@@ -107,19 +128,28 @@ public interface PstIo {
      * this returns an int, but this is signed 
      */
     default int readDw() {
-        //TODO - something more efficient
-        byte[] bytes = read(4);
-        int answer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getInt();
-        return answer;
+        return ByteUtils.bytesToInt(read(4));
+    }
+    
+    /**
+     * read the dw at position, without changing the position
+     */
+    default int readDw(long position) {
+        return ByteUtils.bytesToInt(read(position, 4));
     }
     
     /**
      * this returns a short, but since shorts are signed in java, return an int 
      */
     default int readW() {
-        byte[] bytes = read(2);
-        short signed = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getShort();
-        return signed & 0x00FFFF;
+        return ByteUtils.bytesToUnsignedShort(read(2), 0);
+    }
+    
+    /**
+     * read the w at position, without changing the position
+     */
+    default int readW(long position) {
+        return ByteUtils.bytesToUnsignedShort(read(position, 2), 0);
     }
     
     default byte readByte(long position) {
@@ -130,12 +160,29 @@ public interface PstIo {
         return read(1)[0];
     }
     
+    /**
+     * Compute the pst crc of the length bytes at position, without 
+     * changing the position.<P>
+     * 
+     * The default copies the bytes, implementations backed by
+     * memory compute the crc over their backing storage. 
+     */
+    default int computeCRC(long position, int length) {
+        return CRC.computeCRC(read(position, length));
+    }
+    
+    /**
+     * Get a PstIo over length bytes starting at position.<P>
+     * 
+     * Implementations backed by memory return a view which shares 
+     * bytes with this io, the default implementation copies the bytes.
+     */
     default public PstIo slice(long position, int length) {
         return new InMemoryPstIo(getRoot(), read(position, length));
     }
     
     default public PstIo sliceAndSkip(int length) {
-        InMemoryPstIo answer = new InMemoryPstIo(getRoot(), read(getPosition(), length));
+        PstIo answer = slice(getPosition(), length);
         skip(length);
         return answer;
     }
@@ -147,26 +194,24 @@ public interface PstIo {
     }
 
     default UUID readUUID() {
-        
+        UUID answer = readUUID(getPosition());
+        skip(16);
+        return answer;
+    }
+    
+    /**
+     * read the GUID at position, without changing the position
+     */
+    default UUID readUUID(long position) {
         //seems like an odd encoding for a uuid
         //the endiness changes half way through
         //https://msdn.microsoft.com/en-us/library/system.guid.tobytearray.aspx
-        
-        byte[] bytes = read(16);
-        
-        ByteBuffer bb = ByteBuffer.wrap(bytes);
-        bb.order(ByteOrder.LITTLE_ENDIAN);
-        long msb = 0;
-        msb |= ((long) bb.getInt()) << 32;
-        msb |= ((long) bb.getShort()) << 16;
-        msb |= bb.getShort();
-        
-        bb.order(ByteOrder.BIG_ENDIAN);
-        long lsb = bb.getLong();
-   
-        return new UUID(msb, lsb);
-        
+        byte[] bytes = read(position, 16);
+        return ByteUtils.guidToUUID(
+                ByteUtils.bytesToInt(bytes, 0),
+                ByteUtils.bytesToUnsignedShort(bytes, 4),
+                ByteUtils.bytesToUnsignedShort(bytes, 6),
+                Long.reverseBytes(ByteUtils.bytesToLong(bytes, 8)));
     }
-    
 
 }
\ No newline at end of file
@@ -29,6 +29,9 @@
 
 package com.github.sbridges.pasta.model;
 
+import com.github.sbridges.pasta.util.CryptCyclic;
+import com.github.sbridges.pasta.util.CryptPermute;
+
 /**
  * bCryptMethod (1 byte): Indicates how the data within the PST file is encoded. MUST be set to one
  * of the pre-defined values described in the following table. 
@@ -45,6 +48,44 @@ public enum BCryptMethod {
         this.code = (byte) code;
     }
    
+    /**
+     * Decrypt len bytes of data starting at off in place, 
+     * data is from the block with bid 
+     */
+    public void decrypt(byte[] data, int off, int len, BID bid) {
+        switch(this) {
+        case NDB_CRYPT_NONE:
+            return;
+        case NDB_CRYPT_PERMUTE:
+            CryptPermute.decrypt(data, off, len);
+            return;
+        case NDB_CRYPT_CYCLIC:
+            CryptCyclic.decrypt(data, off, len, bid.getBid());
+            return;
+        default:
+            throw new IllegalStateException("unsupported crypt method:" + this);
+        }
+    }
+    
+    /**
+     * Encrypt len bytes of data starting at off in place, 
+     * data will be written to the block with bid
+     */
+    public void encrypt(byte[] data, int off, int len, BID bid) {
+        switch(this) {
+        case NDB_CRYPT_NONE:
+            return;
+        case NDB_CRYPT_PERMUTE:
+            CryptPermute.encrypt(data, off, len);
+            return;
+        case NDB_CRYPT_CYCLIC:
+            CryptCyclic.encrypt(data, off, len, bid.getBid());
+            return;
+        default:
+            throw new IllegalStateException("unsupported crypt method:" + this);
+        }
+    }
+    
     public static BCryptMethod fromCode(byte code) {
         for(BCryptMethod m : values()) {
             if(m.code == code) {
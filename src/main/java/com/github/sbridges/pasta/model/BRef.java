@@ -50,6 +50,11 @@ public class BRef {
     //value and is 64 bits in Unicode versions and 32 bits in ANSI versions.
     private final long ib;
     
+    public BRef(BID bid, long ib) {
+        this.bid = bid;
+        this.ib = ib;
+    }
+    
     public BRef(PstIo slice) {
         if(slice.size() != 16) {
             throw new IllegalArgumentException("length must be 16, not:" +  slice.size());
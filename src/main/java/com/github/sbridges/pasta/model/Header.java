@@ -32,7 +32,7 @@ package com.github.sbridges.pasta.model;
 import java.util.Arrays;
 
 import com.github.sbridges.pasta.io.PstIo;
-import com.github.sbridges.pasta.util.CRC;
+import com.github.sbridges.pasta.model.ndb.NDBCache;
 
 /**
  * 2.2.2.6 HEADER
@@ -80,6 +80,22 @@ public class Header {
     private final Root root;
     
     public Header(PstIo fileIo) {
+        this(fileIo, new NDBCache(0));
+    }
+    
+    /**
+     * @param cache - cache used by the NBT and BBT
+     */
+    public Header(PstIo fileIo, NDBCache cache) {
+        this(fileIo, cache, Verifier.STRICT);
+    }
+    
+    /**
+     * @param cache - cache used by the NBT and BBT
+     * @param verifier - decides which pages and blocks are verified as they are read,
+     * the header itself is always verified
+     */
+    public Header(PstIo fileIo, NDBCache cache, Verifier verifier) {
         
         PstIo headerContents = fileIo.slice(0, 564);
         
@@ -91,7 +107,7 @@ public class Header {
         //The 32-bit cyclic redundancy check (CRC) value of the 471 bytes of
         //data starting from wMagicClient (0ffset 0x0008)
         int dwCRCPartial = headerContents.readDw();
-        int calculatedDwCRCPartial = CRC.computeCRC(fileIo.read(8, 471));
+        int calculatedDwCRCPartial = fileIo.computeCRC(8, 471);
         if(dwCRCPartial != calculatedDwCRCPartial) {
            throw new IllegalStateException("crc doesn't match, " + dwCRCPartial + " "
                    + "read:" + dwCRCPartial + 
@@ -176,11 +192,8 @@ public class Header {
         
         //bCryptMethod (1 byte)
         bCryptMethod = BCryptMethod.fromCode(headerContents.readByte());
-        if(bCryptMethod == BCryptMethod.NDB_CRYPT_CYCLIC) {
-            throw new IllegalStateException("unsupported crype:" + bCryptMethod);
-        }
         
-        root = new Root(bCryptMethod, rootSlice, fileIo.size());
+        root = new Root(bCryptMethod, rootSlice, fileIo.size(), cache, verifier);
         
         
         //rgbReserved (2 bytes):
@@ -192,7 +205,7 @@ public class Header {
         bidNextB = headerContents.readLong();
         
         int dwCRCFull = headerContents.readDw();
-        int calculatdDwCRCFull = CRC.computeCRC(fileIo.read(8, 516));
+        int calculatdDwCRCFull = fileIo.computeCRC(8, 516);
         if(dwCRCFull != calculatdDwCRCFull) {
             throw new IllegalStateException("invalid dwCRCFull, read:" + dwCRCFull + " calculated:" + calculatdDwCRCFull);
         }
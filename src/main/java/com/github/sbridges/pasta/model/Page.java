@@ -42,22 +42,39 @@ import com.github.sbridges.pasta.io.PstIo;
  */
 public class Page {
 
+    public static final int SIZE = 512;
+    
     private final long ib;
     private final PstIo slice;
     private final PageTrailer pageTrailer;
     
     public Page(BRef ref, PstIo io) {
-        this(io.slice(ref.getIb(), 512), ref.getIb());
+        this(ref, io, true);
+    }
+    
+    public Page(BRef ref, PstIo io, boolean verify) {
+        this(io.slice(ref.getIb(), SIZE), ref.getIb(), verify);
     }
     
     public Page(PstIo slice, long ib) {
-        if(slice.size() != 512) {
+        this(slice, ib, true);
+    }
+    
+    /**
+     * @param verify - if false, the trailer's crc and signature are not checked
+     */
+    public Page(PstIo slice, long ib, boolean verify) {
+        if(slice.size() != SIZE) {
             throw new IllegalStateException("invalid page size:" + slice.size());
         }
         this.slice = slice;
         this.ib = ib;
         
-        this.pageTrailer = new PageTrailer(slice, ib);
+        this.pageTrailer = new PageTrailer(slice, ib, verify);
+    }
+
+    public long getIb() {
+        return ib;
     }
 
     public PstIo getSlice() {
@@ -31,7 +31,6 @@ package com.github.sbridges.pasta.model;
 
 import com.github.sbridges.pasta.io.PstIo;
 import com.github.sbridges.pasta.util.BlockSignature;
-import com.github.sbridges.pasta.util.CRC;
 
 /**
  * A PAGETRAILER structure contain s information about 
@@ -54,6 +53,17 @@ public class PageTrailer {
             PstIo pageSlice, 
             //the position of the page
             long ib) {
+        this(pageSlice, ib, true);
+    }
+    
+    /**
+     * @param verify - if false, the crc and wSig are not checked 
+     */
+    public PageTrailer(
+            PstIo pageSlice, 
+            //the position of the page
+            long ib,
+            boolean verify) {
       
         PstIo trailerSlice = pageSlice.slice(512 - TRAILER_LENGTH, TRAILER_LENGTH);
         pType = PType.fromCode(trailerSlice.readByte());
@@ -65,13 +75,17 @@ public class PageTrailer {
         this.wSig = trailerSlice.readW();
         
         int dwCRC = trailerSlice.readDw();
-        int computedCrc = CRC.computeCRC(pageSlice.read(0, 512 - TRAILER_LENGTH));
+        bid = trailerSlice.readLong();
+        
+        if(!verify) {
+            return;
+        }
+        
+        int computedCrc = pageSlice.computeCRC(0, 512 - TRAILER_LENGTH);
         if(dwCRC != computedCrc) {
             throw new IllegalStateException("invalid crc read:" + dwCRC + " calculated:" + computedCrc);
         }
         
-        bid = trailerSlice.readLong();
-        
         if(pType.iswSigIsBlockOrPageSignature()) {
             short calculatedBlockSignature = BlockSignature.compute(ib, bid);
             if((calculatedBlockSignature & 0xffff) != wSig) {
@@ -31,6 +31,7 @@ package com.github.sbridges.pasta.model;
 
 import com.github.sbridges.pasta.io.PstIo;
 import com.github.sbridges.pasta.model.ndb.BBT;
+import com.github.sbridges.pasta.model.ndb.NDBCache;
 import com.github.sbridges.pasta.model.ndb.NBT;
 
 /**
@@ -67,7 +68,11 @@ public class Root {
         return bbt;
     }
 
-    public Root(BCryptMethod bCryptMethod, PstIo slice, long fileSize) {
+    public Root(BCryptMethod bCryptMethod, PstIo slice, long fileSize, NDBCache cache) {
+        this(bCryptMethod, slice, fileSize, cache, Verifier.STRICT);
+    }
+    
+    public Root(BCryptMethod bCryptMethod, PstIo slice, long fileSize, NDBCache cache, Verifier verifier) {
         
         //dwReserved (4 bytes): Implementations SHOULD ignore this value and SHOULD NOT modify it. 
         //Creators of a new PST file MUST initialize this value to zero
@@ -103,11 +108,11 @@ public class Root {
         //BREFNBT (Unicode: 16 bytes; ANSI: 8 bytes): A BREF structure (section 2.2.2.4) 
         //that references the root page of the Node BTree (NBT).
         BRef BREFNBT = new BRef(slice.sliceAndSkip(16));
-        nbt = new NBT(BREFNBT, slice.getRoot());
+        nbt = new NBT(BREFNBT, slice.getRoot(), cache, verifier);
         
         //BREFBBT (Unicode: 16 bytes; ANSI: 8 bytes): A BREF structure that references the root page of the Block BTree (BBT).
         BRef BREFBBT = new BRef(slice.sliceAndSkip(16));
-        bbt = new BBT(bCryptMethod, BREFBBT, slice.getRoot());
+        bbt = new BBT(bCryptMethod, BREFBBT, slice.getRoot(), cache, verifier);
 
         int fAMapValid = slice.readByte();
         if(fAMapValid != 0 && fAMapValid != 1 && fAMapValid != 2) {
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+
+package com.github.sbridges.pasta.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Decides whether a structure should be verified when it is decoded,
+ * according to a Verification policy.<P>
+ * 
+ * Pages and blocks are identified by their offset in the file, which is 
+ * a multiple of 64.  Checks needed to decode a structure safely 
+ * (sizes, counts) are always done, a Verifier only controls the 
+ * redundant ones.<P>
+ * 
+ * For FIRST_TOUCH the offsets which passed are remembered in a bitset 
+ * with one bit per 64 bytes of the file, 2MB for a 1GB file.<P>
+ * 
+ * This is thread safe.
+ */
+public class Verifier {
+
+    private static final int ALIGNMENT_SHIFT = 6;
+    
+    /**
+     * Verifies everything, holds no state so may be shared 
+     */
+    public static final Verifier STRICT = new Verifier(Verification.STRICT, 1, 0);
+    
+    private final Verification verification;
+    //for SAMPLED, verify 1 in sampleRate structures
+    private final int sampleRate;
+    //for FIRST_TOUCH, a bit for each 64 bytes of the file, set if
+    //the page or block starting there passed
+    private final AtomicLongArray verified;
+    private final AtomicInteger verifiedCount = new AtomicInteger();
+    
+    /**
+     * @param fileSize - the size of the file, offsets past this, or not 64 byte 
+     * aligned, are verified each time 
+     */
+    public Verifier(Verification verification, int sampleRate, long fileSize) {
+        if(verification == null) {
+            throw new NullPointerException("verification");
+        }
+        if(sampleRate < 1) {
+            throw new IllegalArgumentException("invalid sampleRate:" + sampleRate);
+        }
+        if(fileSize < 0) {
+            throw new IllegalArgumentException("invalid fileSize:" + fileSize);
+        }
+        this.verification = verification;
+        this.sampleRate = sampleRate;
+        if(verification == Verification.FIRST_TOUCH) {
+            long words = ((fileSize >>> ALIGNMENT_SHIFT) + 63) >>> 6;
+            if(words > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("file too large:" + fileSize);
+            }
+            verified = new AtomicLongArray((int) words);
+        } else {
+            verified = new AtomicLongArray(0);
+        }
+    }
+    
+    /**
+     * Decode the page or block at ib, with decoder told whether to verify it.
+     * If it is verified, and the decoder does not throw, ib is marked verified.
+     */
+    public <T> T decode(long ib, Decoder<T> decoder) {
+        boolean verify = shouldVerify(ib);
+        T answer = decoder.decode(verify);
+        if(verify && verification == Verification.FIRST_TOUCH) {
+            markVerified(ib);
+        }
+        return answer;
+    }
+    
+    /**
+     * Decode a structure held inside a page or block, such as a heap's page map, 
+     * which is checked in memory after its page or block has been read.<P>
+     * 
+     * These do not start on a 64 byte boundary, so FIRST_TOUCH can not remember 
+     * them, and verifies them each time.
+     */
+    public <T> T decodeNested(Decoder<T> decoder) {
+        boolean verify;
+        switch(verification) {
+        case STRICT:
+        case FIRST_TOUCH:
+            verify = true;
+            break;
+        case SAMPLED:
+            verify = ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+            break;
+        case NONE:
+            verify = false;
+            break;
+        default:
+            throw new IllegalStateException("unknown verification:" + verification);
+        }
+        return decoder.decode(verify);
+    }
+    
+    public boolean shouldVerify(long ib) {
+        switch(verification) {
+        case STRICT:
+            return true;
+        case FIRST_TOUCH:
+            return !isVerified(ib);
+        case SAMPLED:
+            return ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+        case NONE:
+            return false;
+        default:
+            throw new IllegalStateException("unknown verification:" + verification);
+        }
+    }
+    
+    private boolean isVerified(long ib) {
+        int word = wordIndex(ib);
+        if(word < 0) {
+            return false;
+        }
+        return (verified.get(word) & bit(ib)) != 0;
+    }
+    
+    private void markVerified(long ib) {
+        int word = wordIndex(ib);
+        if(word < 0) {
+            return;
+        }
+        long bit = bit(ib);
+        long old = verified.getAndUpdate(word, w -> w | bit);
+        if((old & bit) == 0) {
+            verifiedCount.incrementAndGet();
+        }
+    }
+    
+    /**
+     * @return the index of ib's word in verified, or -1 if ib can't be remembered,
+     * as it is not 64 byte aligned, or past the end of the file
+     */
+    private int wordIndex(long ib) {
+        if(ib < 0 || (ib & ((1 << ALIGNMENT_SHIFT) - 1)) != 0) {
+            return -1;
+        }
+        long word = ib >>> (ALIGNMENT_SHIFT + 6);
+        return word < verified.length() ? (int) word : -1;
+    }
+    
+    private static long bit(long ib) {
+        return 1L << ((ib >>> ALIGNMENT_SHIFT) & 63);
+    }
+    
+    public Verification getVerification() {
+        return verification;
+    }
+    
+    public int getSampleRate() {
+        return sampleRate;
+    }
+    
+    /**
+     * The number of structures remembered as verified, only non zero for FIRST_TOUCH 
+     */
+    public int getVerifiedCount() {
+        return verifiedCount.get();
+    }
+    
+    @Override
+    public String toString() {
+        return "Verifier [verification=" + verification + ", sampleRate=" + sampleRate 
+                + ", verifiedCount=" + verifiedCount.get() + "]";
+    }
+
+    /**
+     * Decodes a structure, doing its redundant checks only if verify is true 
+     */
+    @FunctionalInterface
+    public interface Decoder<T> {
+        T decode(boolean verify);
+    }
+}
@@ -30,9 +30,9 @@
 package com.github.sbridges.pasta.model.ltp.bth;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import com.github.sbridges.pasta.io.PstIo;
 import com.github.sbridges.pasta.model.ltp.hn.HID;
@@ -93,6 +93,28 @@ public class BTH {
     }
     
     
+    /**
+     * Pass the records of each leaf to consumer, in key order.<P>
+     * 
+     * Each slice holds whole records of cbKey + cbEnt bytes, the key 
+     * followed by the data.
+     */
+    public void forEachLeaf(Consumer<PstIo> consumer) {
+        if(header.getHidRoot().isPresent()) {
+            forEachLeaf(header.getHidRoot().get(), header.getbIdxLevels(), consumer);
+        }
+    }
+    
+    private void forEachLeaf(HID hid, int idxLevel, Consumer<PstIo> consumer) {
+        if(idxLevel == 0) {
+            consumer.accept(loadRecords(hid, header.getCbKey() + header.getCbEnt()));
+        } else {
+            for(IntermediateBTH i : loadIntermediate(hid)) {
+                forEachLeaf(i.getHid(), idxLevel - 1, consumer);
+            }
+        }
+    }
+    
     public String debugString() {
         StringBuilder answer = new StringBuilder();
         answer.append("BTH").append(hn.debugString()).append("\n");
@@ -168,52 +190,80 @@ public class BTH {
             throw new IllegalStateException("invalid key length:" + key + " this:" + this);
         }
         HID current = header.getHidRoot().get();
+        int cbKey = header.getCbKey();
         
         //walk through the indexes
         int indexLevel = header.getbIdxLevels();
         while(indexLevel > 0) {
-            HID last = null;
-            for(IntermediateBTH index : loadIntermediate(current)) {
-                if(greaterThan(index.getKey(), key)) {
-                    break;
-                }
-                last = index.getHid();
-            }
+            PstIo records = loadRecords(current, cbKey + 4);
+            int index = floor(records, cbKey + 4, key);
             
             indexLevel--;
-            if(last == null) {
+            if(index < 0) {
                 return Optional.empty();
             }
-            current = last;
+            //hidNextLevel follows the key
+            current = new HID(records.readDw(index * (cbKey + 4) + cbKey));
         }
         
         //current we now point at a leaf hid
-        for(LeafBTH leaf : loadLeaf(current)) {
-            if(Arrays.equals(leaf.getKey(), key)) {
-                return Optional.of(leaf.getValue());
-            }
+        int cb = cbKey + header.getCbEnt();
+        PstIo records = loadRecords(current, cb);
+        int index = floor(records, cb, key);
+        if(index >= 0 && compareKey(records, index * cb, key) == 0) {
+            return Optional.of(records.read(index * cb + cbKey, header.getCbEnt()));
         }
         
         return Optional.empty();
     }
     
-    
-    private static boolean greaterThan(byte[] l, byte[] r) {
-        if(l.length != r.length) {
-            throw new IllegalStateException("sizes should be the same");
+    private PstIo loadRecords(HID hid, int cb) {
+        PstIo slice = hn.load(hid);
+        if(slice.size() % cb != 0) {
+            throw new IllegalStateException("block size not an integral number of entries?");
         }
-        for(int i = 0; i < l.length; i++) {
-            if(l[i] == r[i]) {
-                continue;
+        return slice;
+    }
+    
+    /**
+     * Binary search the records of size cb in slice for the last record
+     * whose key is less than or equal to key, decoding only the keys.
+     * 
+     * @return the index of the record, or -1 if all keys are greater than key
+     */
+    private static int floor(PstIo slice, int cb, byte[] key) {
+        int low = 0;
+        int high = (int) (slice.size() / cb) - 1;
+        int answer = -1;
+        while(low <= high) {
+            int mid = (low + high) >>> 1;
+            if(compareKey(slice, mid * cb, key) <= 0) {
+                answer = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
             }
+        }
+        return answer;
+    }
+    
+    /**
+     * Compare the key at offset in slice with key.<P>
+     * 
+     * Keys are little endian unsigned values, so compare 
+     * starting from the most significant (last) byte.
+     */
+    private static int compareKey(PstIo slice, int offset, byte[] key) {
+        for(int i = key.length - 1; i >= 0; i--) {
             //signed bytes! compare as int's taking
             //care to ignore sign
-            if( (l[i] & 0xFF) >  (r[i] & 0xFF)) {
-                return true;
+            int l = slice.readByte(offset + i) & 0xFF;
+            int r = key[i] & 0xFF;
+            if(l != r) {
+                return l < r ? -1 : 1;
             }
-            return false;
         }
-        return false;
+        return 0;
     }
 
     @Override
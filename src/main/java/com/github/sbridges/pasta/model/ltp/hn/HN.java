@@ -31,22 +31,30 @@ package com.github.sbridges.pasta.model.ltp.hn;
 
 import com.github.sbridges.pasta.io.PstIo;
 import com.github.sbridges.pasta.model.BID;
+import com.github.sbridges.pasta.model.Verifier;
 import com.github.sbridges.pasta.model.ndb.BBT;
-import com.github.sbridges.pasta.model.ndb.DataBlock;
-import com.github.sbridges.pasta.model.ndb.XBlockUtil;
+import com.github.sbridges.pasta.model.ndb.NodeDataStream;
 import com.github.sbridges.pasta.util.ByteUtils;
 
 /**
  * 2.3.1 HN (Heap-on-Node)
  * The Heap-on-Node defines a standard heap over a node's data stream. Taking advantage of the flexible structure of the node, the organization of the heap data can take on several forms, depending on how much data is stored in the heap.
- * For heaps whose size exceed the amount of data that can fit in one data block, the first data block in the HN contains a full header record and a trailer record. With the exception of blocks that require an HNBITMAPHDR structure, subsequent data blocks only have an abridged header and a trailer. This is explained in more detail in the following sections. Because the heap is a structure that is defined at a higher layer than the NDB, the heap structures are written to the external data sections of data blocks and do not use any information from the data block's NDB structure.
+ * For heaps whose size exceed the amount of data that can fit in one data block, the first data block in the HN contains a full header record and a trailer record. With the exception of blocks that require an HNBITMAPHDR structure, subsequent data blocks only have an abridged header and a trailer. This is explained in more detail in the following sections. Because the heap is a structure that is defined at a higher layer than the NDB, the heap structures are written to the external data sections of data blocks and do not use any information from the data block's NDB structure.<P>
+ * 
+ * An HN decodes each of its blocks once and keeps them for its lifetime.
+ * It is not thread safe.
  */
 public class HN {
 
     private final BBT bbt;
     private final BID bid;
+    private final NodeDataStream stream;
     private final HNHDR hnhdr;
     
+    //each block is decrypted and its page map parsed once, on first use
+    private final PstIo[] blocks;
+    private final HNPAGEMAP[] pageMaps;
+    
     public HNHDR getHnhdr() {
         return hnhdr;
     }
@@ -54,6 +62,9 @@ public class HN {
     public HN(BBT bbt, BID bid) {
         this.bbt = bbt;
         this.bid = bid;
+        this.stream = new NodeDataStream(bbt, bid);
+        this.blocks = new PstIo[stream.getBlockCount()];
+        this.pageMaps = new HNPAGEMAP[stream.getBlockCount()];
        
         PstIo slice = getDataBlockSlice(0);
         hnhdr = new HNHDR(slice.slice(0, 12));
@@ -69,11 +80,23 @@ public class HN {
         return hnhdr.getHidUserRoot();
     }
     
+    /**
+     * Get the allocation for hid.<P>
+     * 
+     * This is a view of the decoded block, each call returns a 
+     * new PstIo with its own position. 
+     */
     public PstIo load(HID hid) {
-        PstIo slice = getDataBlockSlice(hid.getHidBlockIndex());
-        HNPAGEMAP pageMap = getPageMap(hid.getHidBlockIndex(), slice);
-        return pageMap.slice(hid.getHidIndex(), slice);
-        
+        int blockIndex = hid.getHidBlockIndex();
+        PstIo slice = getDataBlockSlice(blockIndex);
+        return getPageMap(blockIndex).slice(hid.getHidIndex(), slice);
+    }
+    
+    /**
+     * Decides which structures of this heap are verified as they are decoded 
+     */
+    public Verifier getVerifier() {
+        return bbt.getVerifier();
     }
     
     public String debugString() {
@@ -85,7 +108,7 @@ public class HN {
         }
         
         PstIo io = getDataBlockSlice(0);
-        HNPAGEMAP pgMap = getPageMap(0, getDataBlockSlice(0));
+        HNPAGEMAP pgMap = getPageMap(0);
         sb.append(", HNPAGEMAP=").append(pgMap);
         
         int[] rgibAlloc = pgMap.getRgibAlloc();
@@ -96,25 +119,28 @@ public class HN {
         return sb.toString();
     }
     
-    private HNPAGEMAP getPageMap(int hidBlockIndex, PstIo slice) {
-        slice.seek(0);
-        int ibHnpm = slice.readW();
-        
-        if(hidBlockIndex == 0) {
-            return new HNPAGEMAP(
-                    slice.slice(ibHnpm, (int) slice.size() - ibHnpm)
-                    );
-        } else {
-            
-            return new HNPAGEMAP(
-                    slice.slice(ibHnpm, (int) slice.size() - ibHnpm)
-                    );
+    private HNPAGEMAP getPageMap(int hidBlockIndex) {
+        HNPAGEMAP answer = pageMaps[hidBlockIndex];
+        if(answer == null) {
+            PstIo slice = getDataBlockSlice(hidBlockIndex);
+            //ibHnpm is the first field of the HNHDR, HNPAGEHDR and HNBITMAPHDR
+            int ibHnpm = slice.readW(0);
+            answer = bbt.getVerifier().decodeNested(verify -> new HNPAGEMAP(
+                    slice.slice(ibHnpm, (int) slice.size() - ibHnpm),
+                    verify
+                    ));
+            pageMaps[hidBlockIndex] = answer;
         }
+        return answer;
     }
     
     private PstIo getDataBlockSlice(int hidBlockIndex) {
-        DataBlock db = XBlockUtil.getDataBlock(hidBlockIndex, bid, bbt);
-        return db.getDataDecrypted();
+        PstIo answer = blocks[hidBlockIndex];
+        if(answer == null) {
+            answer = stream.getBlock(hidBlockIndex).getDataDecrypted();
+            blocks[hidBlockIndex] = answer;
+        }
+        return answer;
     }
 
 
@@ -60,6 +60,13 @@ public class HNPAGEMAP {
     private final int[] rgibAlloc;
     
     public HNPAGEMAP(PstIo slice) {
+        this(slice, true);
+    }
+    
+    /**
+     * @param verify - if false, the padding after the map is not checked
+     */
+    public HNPAGEMAP(PstIo slice, boolean verify) {
         cAlloc = slice.readW();
         cFree = slice.readW();
         
@@ -69,7 +76,7 @@ public class HNPAGEMAP {
         }
         
         // There can be anywhere from 0 to 63 bytes of padding between the HNPAGEMAP and the block trailer
-        if(slice.remaining() > 63) {
+        if(verify && slice.remaining() > 63) {
             throw new IllegalStateException("too much remaining, slice:" + slice);
         }
     }
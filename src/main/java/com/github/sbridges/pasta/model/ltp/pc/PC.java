@@ -29,8 +29,10 @@
 
 package com.github.sbridges.pasta.model.ltp.pc;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -42,6 +44,7 @@ import com.github.sbridges.pasta.model.ltp.hn.BClientSig;
 import com.github.sbridges.pasta.model.ltp.hn.HN;
 import com.github.sbridges.pasta.model.ndb.NBTEntry;
 import com.github.sbridges.pasta.model.ndb.NID;
+import com.github.sbridges.pasta.model.ndb.NodeDataStream;
 import com.github.sbridges.pasta.model.ndb.SLEntry;
 import com.github.sbridges.pasta.model.ndb.SubnodeBTree;
 import com.github.sbridges.pasta.util.ByteUtils;
@@ -69,6 +72,9 @@ public class PC {
     private final Optional<NID> nidParent;
     private final NBTEntry entry;
     private final PstReader reader;
+    //created on first use
+    private SubnodeBTree subnodes;
+    private PCIndex index;
     
     public PC(PstReader reader, NID nid) {
         this.reader = reader;
@@ -93,30 +99,109 @@ public class PC {
     }
     
     public List<byte[]> listKeys() {
-        return bth.getKeys();
+        PCIndex index = getIndex();
+        List<byte[]> answer = new ArrayList<>(index.size());
+        for(int i = 0; i < index.size(); i++) {
+            answer.add(ByteUtils.shortToBytesLE(index.getPropId(i)));
+        }
+        return answer;
     }
     
     public List<Property<?>> listProps() {
-        List<Property<?>> answer = new ArrayList<>();
-        for(byte[] key : bth.getKeys()) {
-            answer.add(Property.fromCode(ByteUtils.bytesToShort(key[0], key[1])));
+        PCIndex index = getIndex();
+        List<Property<?>> answer = new ArrayList<>(index.size());
+        for(int i = 0; i < index.size(); i++) {
+            answer.add(Property.fromTag(index.getPropId(i), index.getPropType(i)));
         }
         return answer;
     }
     
     public Object load(byte[] key) {
-        return load(key, Optional.empty());
+        return load(indexOf(key), null);
     }
     
     public <T> T load(Property<T> property) {
-        return (T) load(
-                    toBytes(property),
-                    Optional.of(property.getType())
-                );
+        int index = getIndex().indexOf(property.getCode());
+        if(index < 0) {
+            throw new IllegalStateException("not found:" + property);
+        }
+        return (T) load(index, property.getType());
     }
 
-    private <T> byte[] toBytes(Property<T> property) {
-        return ByteUtils.shortToBytesLE(property.getCode());
+    /**
+     * Get a PtypInteger32 property without boxing it
+     */
+    public int getInt(Property<Integer> property) {
+        return getIndex().getValueHnid(indexOf(property, PropertyType.PtypInteger32));
+    }
+    
+    /**
+     * Get a PtypBoolean property without boxing it
+     */
+    public boolean getBoolean(Property<Boolean> property) {
+        return PropertyType.toBoolean(getIndex().getValueHnid(indexOf(property, PropertyType.PtypBoolean)));
+    }
+    
+    /**
+     * Get a PtypInteger64 property without boxing it
+     */
+    public long getLong(Property<Long> property) {
+        return loadHeapLong(indexOf(property, PropertyType.PtypInteger64));
+    }
+    
+    /**
+     * Get a PtypTime property as a FILETIME, the number of 
+     * 100-nanosecond intervals since January 1, 1601.<P>
+     * 
+     * @see PropertyType#fileTimeToEpochMilli(long)
+     */
+    public long getFileTime(Property<Instant> property) {
+        return loadHeapLong(indexOf(property, PropertyType.PtypTime));
+    }
+    
+    /**
+     * @return the index of property, which must be present and of type 
+     */
+    private int indexOf(Property<?> property, PropertyType<?> type) {
+        if(property.getType() != type) {
+            throw new IllegalArgumentException("not a " + type.getName() + ":" + property);
+        }
+        int index = getIndex().indexOf(property.getCode());
+        if(index < 0) {
+            throw new IllegalStateException("not found:" + property);
+        }
+        if(getIndex().getPropType(index) != type.getCode()) {
+            throw new IllegalStateException("expected:" + type + " got:" + PropertyType.fromCode(getIndex().getPropType(index)));
+        }
+        return index;
+    }
+    
+    /**
+     * 8 byte values do not fit in dwValueHnid, so are in the heap 
+     */
+    private long loadHeapLong(int index) {
+        HNID hnid = new HNID(getIndex().getValueHnid(index));
+        if(!hnid.isHid()) {
+            throw new IllegalStateException("not in the heap:" + hnid);
+        }
+        PstIo contents = bth.getHN().load(hnid.asHID());
+        if(contents.size() != 8) {
+            throw new IllegalStateException("invalid size:" + contents.size());
+        }
+        return contents.readLong(0);
+    }
+    
+    /**
+     * Get the decoded records of this PC, reading them on first use.<P>
+     * 
+     * Values stored in the heap or a subnode are only read 
+     * when they are loaded.
+     */
+    public PCIndex getIndex() {
+        if(index == null) {
+            index = PCIndex.build(bth);
+        }
+        return index;
     }
     
     public String debugString() {
@@ -130,24 +215,40 @@ public class PC {
     }
     
     public boolean containsKey(Property<?> prop) {
-        return bth.load(toBytes(prop)).isPresent();
+        return getIndex().contains(prop.getCode());
     }
     
     public PropertyType<?> getType(byte[] key) {
-        byte[] value = bth.load(key).orElseThrow(() -> new IllegalStateException("not found:" + ByteUtils.bytesToHex(key)));
-        return PropertyType.fromCode(ByteUtils.bytesToShort(value[0], value[1]));
+        return PropertyType.fromCode(getIndex().getPropType(indexOf(key)));
     }
     
-    private Object load(byte[] key, Optional<PropertyType<?>> validationType) {
-        byte[] value = bth.load(key).orElseThrow(() -> new IllegalStateException("not found:" + ByteUtils.bytesToHex(key)));
-        
-        PropertyType<?> type = PropertyType.fromCode(ByteUtils.bytesToShort(value[0], value[1]));
-        
+    private int indexOf(byte[] key) {
+        if(key.length != 2) {
+            throw new IllegalStateException("invalid key length:" + key.length);
+        }
+        int index = getIndex().indexOf(ByteUtils.bytesToShort(key[0], key[1]));
+        if(index < 0) {
+            throw new IllegalStateException("not found:" + ByteUtils.bytesToHex(key));
+        }
+        return index;
+    }
+    
+    /**
+     * @param validationType - if not null, the type the property must have
+     */
+    private Object load(int index, PropertyType<?> validationType) {
+        PropertyType<?> type = PropertyType.fromCode(getIndex().getPropType(index));
         
-        validationType.ifPresent(t -> { if(t != type) {throw new IllegalStateException("expected:" + t + " got:" + type);}} );
+        if(validationType != null && validationType != type) {
+            throw new IllegalStateException("expected:" + validationType + " got:" + type);
+        }
+        if(!type.isKnown()) {
+            throw new IllegalStateException("can't decode:" + type);
+        }
         
+        int valueHnid = getIndex().getValueHnid(index);
         if(type.getSize().isVariable() || type.getSize().getSize() > 4) {
-            HNID hnid = new HNID(ByteUtils.bytesToInt(value[2], value[3], value[4], value[5]));
+            HNID hnid = new HNID(valueHnid);
             
             PstIo contents;
             //is this right
@@ -157,20 +258,71 @@ public class PC {
             else if(hnid.isHid()) {
                 contents = bth.getHN().load(hnid.asHID());
             } else {
-                SubnodeBTree sbt = new SubnodeBTree(reader.getBBT(), entry.getBidSub().get());
-                SLEntry entry = sbt.load(hnid.asNID()).get();
-                contents = reader.getBBT().load(entry.getBidData()).getDataDecrypted();
+                contents = getSubnodeData(hnid.asNID()).getData();
             }
             
             return type.loadVariableSize(contents);
             
             
         } else {
-            return type.loadFixed(Arrays.copyOfRange(value, 2, 6));
+            return type.loadFixed(ByteUtils.intToBytesLE(valueHnid));
         }
         
     }
     
+    /**
+     * Open a stream over the raw bytes of a property which 
+     * is stored in the heap or a subnode.<P>
+     * 
+     * A value in a subnode is read one block at a time, 
+     * so values of any size can be streamed in constant memory.
+     */
+    public InputStream openStream(Property<?> property) {
+        int index = getIndex().indexOf(property.getCode());
+        if(index < 0) {
+            throw new IllegalStateException("not found:" + property);
+        }
+        PropertyType<?> type = PropertyType.fromCode(getIndex().getPropType(index));
+        if(!type.isKnown()) {
+            //we can't tell if the value is inline, see getIndex
+            throw new IllegalStateException("can't decode:" + type);
+        }
+        if(!type.getSize().isVariable() && type.getSize().getSize() <= 4) {
+            throw new IllegalStateException("stored inline:" + property + " type:" + type);
+        }
+        
+        HNID hnid = new HNID(getIndex().getValueHnid(index));
+        if(hnid.isBlank()) {
+            return new ByteArrayInputStream(new byte[0]);
+        } else if(hnid.isHid()) {
+            PstIo contents = bth.getHN().load(hnid.asHID());
+            return new ByteArrayInputStream(contents.read(0, (int) contents.size()));
+        } else {
+            return getSubnodeData(hnid.asNID()).newInputStream();
+        }
+    }
+    
+    /**
+     * Get the data of one of this PC's subnodes 
+     */
+    public NodeDataStream getSubnodeData(NID nid) {
+        SLEntry slEntry = getSubnodes().load(nid).orElseThrow(() -> new IllegalStateException("subnode not found:" + nid));
+        return new NodeDataStream(reader.getBBT(), slEntry.getBidData());
+    }
+    
+    /**
+     * Get the subnode BTree of this PC's node, which indexes 
+     * its subnodes on first use 
+     */
+    public SubnodeBTree getSubnodes() {
+        if(subnodes == null) {
+            subnodes = new SubnodeBTree(
+                    reader.getBBT(), 
+                    entry.getBidSub().orElseThrow(() -> new IllegalStateException("no subnodes:" + entry)));
+        }
+        return subnodes;
+    }
+    
     public Optional<NID> getNidParent() {
         return nidParent;
     }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ltp.pc;
+
+import java.util.stream.LongStream;
+
+import com.github.sbridges.pasta.io.PstIo;
+import com.github.sbridges.pasta.model.ltp.bth.BTH;
+import com.github.sbridges.pasta.util.ByteUtils;
+
+/**
+ * An in memory index of the records of a PC's BTH.<P>
+ * 
+ * Each 2.3.3.3 PC BTH Record is packed into a long, with the property id 
+ * in the high 2 bytes, and the longs are sorted by property id, so a lookup 
+ * is a binary search with no io or allocation.  A dwValueHnid is 
+ * either the value itself, or an HNID whose data is only read when 
+ * the value is asked for.<P>
+ * 
+ * Property ids are unsigned, and are sorted as such.
+ */
+public class PCIndex {
+
+    //the key, then wPropType and dwValueHnid
+    private static final int RECORD_SIZE = 8;
+    
+    //the property id in the high 2 bytes, then wPropType, 
+    //then dwValueHnid in the low 4 bytes
+    private final long[] records;
+    
+    private PCIndex(long[] records) {
+        this.records = records;
+    }
+    
+    /**
+     * Build an index by reading every leaf of bth, which must have a 
+     * 2 byte key and 6 byte data 
+     */
+    public static PCIndex build(BTH bth) {
+        if(bth.getHeader().getCbKey() != 2 ||
+           bth.getHeader().getCbEnt() != 6) {
+            throw new IllegalStateException("invalid bth:" + bth);
+        }
+        LongStream.Builder records = LongStream.builder();
+        bth.forEachLeaf(leaf -> readRecords(leaf, records));
+        
+        long[] sorted = records.build().toArray();
+        //the leaves are visited in order
+        for(int i = 1; i < sorted.length; i++) {
+            if((sorted[i - 1] >>> 48) >= (sorted[i] >>> 48)) {
+                throw new IllegalStateException("PC not sorted, previous:" + ByteUtils.shortToHex(getPropId(sorted[i - 1])) + 
+                        " propId:" + ByteUtils.shortToHex(getPropId(sorted[i])));
+            }
+        }
+        return new PCIndex(sorted);
+    }
+    
+    private static void readRecords(PstIo leaf, LongStream.Builder records) {
+        byte[] bytes = leaf.read(0, (int) leaf.size());
+        for(int offset = 0; offset < bytes.length; offset += RECORD_SIZE) {
+            long propId = ByteUtils.bytesToShort(bytes[offset], bytes[offset + 1]) & 0xFFFFL;
+            long propType = ByteUtils.bytesToShort(bytes[offset + 2], bytes[offset + 3]) & 0xFFFFL;
+            long valueHnid = ByteUtils.bytesToInt(bytes, offset + 4) & 0xFFFFFFFFL;
+            records.add((propId << 48) | (propType << 32) | valueHnid);
+        }
+    }
+    
+    /**
+     * Binary search for propId
+     * 
+     * @return the index of propId, or -1 if it is not present
+     */
+    public int indexOf(short propId) {
+        int key = propId & 0xFFFF;
+        int low = 0;
+        int high = records.length - 1;
+        while(low <= high) {
+            int mid = (low + high) >>> 1;
+            int midKey = (int) (records[mid] >>> 48);
+            if(midKey < key) {
+                low = mid + 1;
+            } else if(midKey > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+    
+    public boolean contains(short propId) {
+        return indexOf(propId) >= 0;
+    }
+    
+    public short getPropId(int index) {
+        return getPropId(records[index]);
+    }
+    
+    /**
+     * The wPropType of the index'th record 
+     */
+    public short getPropType(int index) {
+        return (short) (records[index] >>> 32);
+    }
+    
+    /**
+     * The dwValueHnid of the index'th record, the value if it fits 
+     * in 4 bytes, otherwise an HNID 
+     */
+    public int getValueHnid(int index) {
+        return (int) records[index];
+    }
+    
+    public int size() {
+        return records.length;
+    }
+    
+    /**
+     * The memory used by the index arrays
+     */
+    public long getSizeBytes() {
+        return records.length * 8L;
+    }
+    
+    private static short getPropId(long record) {
+        return (short) (record >>> 48);
+    }
+    
+    @Override
+    public String toString() {
+        return "PCIndex [size=" + size() + ", sizeBytes=" + getSizeBytes() + "]";
+    }
+}
@@ -30,8 +30,6 @@
 package com.github.sbridges.pasta.model.ltp.pc;
 
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
 
 import com.github.sbridges.pasta.util.ByteUtils;
 import com.github.sbridges.pasta.util.Bytes;
@@ -42,7 +40,8 @@ import com.github.sbridges.pasta.util.Bytes;
  */
 public class Property<T> {
     
-    private static final Map<Short, Property<?>> ALL_PROPS = new HashMap<>();
+    //indexed by the unsigned code
+    private static final Property<?>[] ALL_PROPS = new Property<?>[1 << 16];
     
     //2.4.3.1 Minimum Set of Required Properties
     //Record Key. This is the Provider UID of this PST.
@@ -225,22 +224,57 @@ public class Property<T> {
     private final String name;
     private final short code;
     private final PropertyType<T> type;
+    private final boolean known;
 
+    /**
+     * Get the property for code.<P>
+     * 
+     * If code is not a property we know, this returns a new property 
+     * which is not known, but keeps the code, with the 
+     * unspecified type 0x0000.  Use fromTag if the type is known.
+     */
     public static Property<?> fromCode(short code) {
-        Property<?> answer =  ALL_PROPS.get(code);
+        return fromTag(code, (short) 0);
+    }
+    
+    /**
+     * Get the property for code, whose value is stored as type.<P>
+     * 
+     * If code is not a property we know, this returns a new property 
+     * which is not known, but keeps the code and type, so it 
+     * may still be listed and its raw value read. 
+     */
+    public static Property<?> fromTag(short code, short type) {
+        Property<?> answer = ALL_PROPS[code & 0xFFFF];
         if(answer == null) {
-            throw new IllegalStateException("unrecognized code:" + ( 0xFFFF & code) + " hex:" + ByteUtils.shortToHex(code));
+            return new Property<>("Unknown_" + ByteUtils.shortToHex(code), code, PropertyType.fromCode(type), false);
         }
         return answer;
     }
     
     private Property(String name, int code, PropertyType<T> type) {
+        this(name, code, type, true);
+    }
+    
+    private Property(String name, int code, PropertyType<T> type, boolean known) {
         this.name = name;
         this.code = (short) code;
         this.type = type;
+        this.known = known;
         
-        ALL_PROPS.merge(this.code, this, (x, y) -> { throw new IllegalStateException("duplicate code:" + code); });
-        
+        if(known) {
+            if(ALL_PROPS[code & 0xFFFF] != null) {
+                throw new IllegalStateException("duplicate code:" + code);
+            }
+            ALL_PROPS[code & 0xFFFF] = this;
+        }
+    }
+    
+    /**
+     * Is this one of the properties defined here  
+     */
+    public boolean isKnown() {
+        return known;
     }
     
     public String getName() {
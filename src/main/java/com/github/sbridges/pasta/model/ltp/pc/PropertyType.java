@@ -31,8 +31,6 @@ package com.github.sbridges.pasta.model.ltp.pc;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
 
 import com.github.sbridges.pasta.io.PstIo;
 import com.github.sbridges.pasta.util.ByteUtils;
@@ -67,7 +65,10 @@ public class PropertyType<T> {
         }
     }
     
-    private static final Map<Short, PropertyType<?>> lookup = new HashMap<>();
+    //indexed by the unsigned code
+    private static final PropertyType<?>[] BY_CODE = new PropertyType<?>[1 << 16];
+    //the types we do not know how to decode, created as they are seen
+    private static final PropertyType<?>[] UNKNOWN_BY_CODE = new PropertyType<?>[1 << 16];
     
     public static PropertyType<Boolean> PtypBoolean = new PropertyType<Boolean>("PtypBoolean", Boolean.class, Size.FIXED_1, (short) 0x000B) {
         @Override
@@ -140,11 +141,18 @@ public class PropertyType<T> {
         public Instant loadVariableSize(PstIo io) {
             io.seek(0);
             long intervals = io.readLong();
-            //http://stackoverflow.com/questions/5200192/convert-64-bit-windows-number-to-time-java
-            long msSinceEpoch = (intervals-116444736000000000L)/10000;
             io.assertExhausted();
-            return Instant.ofEpochMilli(msSinceEpoch);
+            return Instant.ofEpochMilli(fileTimeToEpochMilli(intervals));
         }  
+        
+        //from a TC we will be loaded directly
+        @Override
+        public Instant loadFixed(byte[] contents) {
+            if(contents.length != 8) {
+                throw new IllegalStateException();
+            }
+            return Instant.ofEpochMilli(fileTimeToEpochMilli(ByteUtils.bytesToLong(contents, 0)));
+        }
     };
     
     /*
@@ -222,25 +230,70 @@ public class PropertyType<T> {
     
     
     
+    /**
+     * Convert a FILETIME, the number of 100-nanosecond intervals since 
+     * January 1, 1601, to milliseconds since the java epoch 
+     */
+    public static long fileTimeToEpochMilli(long fileTime) {
+        //http://stackoverflow.com/questions/5200192/convert-64-bit-windows-number-to-time-java
+        return (fileTime - 116444736000000000L) / 10000;
+    }
+    
+    /**
+     * Decode a PtypBoolean, which must be stored as 0 or 1 
+     */
+    public static boolean toBoolean(long value) {
+        if(value == 1) {
+            return true;
+        } else if(value == 0) {
+            return false;
+        } else {
+            throw new IllegalStateException("invalid boolean:" + value);
+        }
+    }
+    
+    /**
+     * Get the type for code.<P>
+     * 
+     * If code is not a type we can decode, this returns a type which 
+     * is not known, but keeps the code. 
+     */
     public static PropertyType<?> fromCode(short code) {
-        return lookup.computeIfAbsent(code, __ -> {
-            throw new IllegalStateException("not found:" + code);
-        });
+        PropertyType<?> answer = BY_CODE[code & 0xFFFF];
+        if(answer != null) {
+            return answer;
+        }
+        answer = UNKNOWN_BY_CODE[code & 0xFFFF];
+        if(answer == null) {
+            //racing threads may each create one, which is harmless
+            answer = new PropertyType<Bytes>("PtypUnknown", Bytes.class, Size.VARIABLE, code, false);
+            UNKNOWN_BY_CODE[code & 0xFFFF] = answer;
+        }
+        return answer;
     }
     
     private final String name;
     private final Class<T> type;
     private final Size size;
     private final short code;
+    private final boolean known;
     
     private PropertyType(String name, Class<T> type, Size size, short code) {
+        this(name, type, size, code, true);
+    }
+    
+    private PropertyType(String name, Class<T> type, Size size, short code, boolean known) {
         this.type = type;
         this.size = size;
         this.code = code;
         this.name = name;
-        lookup.merge(code, this, (l, r) -> {
-           throw new IllegalStateException("duplicate code:" + code); 
-        });
+        this.known = known;
+        if(known) {
+            if(BY_CODE[code & 0xFFFF] != null) {
+                throw new IllegalStateException("duplicate code:" + code); 
+            }
+            BY_CODE[code & 0xFFFF] = this;
+        }
     }
 
     public String getName() {
@@ -259,6 +312,13 @@ public class PropertyType<T> {
         return code;
     }
     
+    /**
+     * Is this a type we know how to decode 
+     */
+    public boolean isKnown() {
+        return known;
+    }
+    
     public void assertRightCode(byte b1, byte b2) {
         short otherCode = ByteUtils.bytesToShort(b1, b2);
         if(otherCode != code) {
@@ -29,9 +29,12 @@
 
 package com.github.sbridges.pasta.model.ltp.tc;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.LongStream;
 
+import com.github.sbridges.pasta.io.PstIo;
 import com.github.sbridges.pasta.model.ltp.bth.BTH;
 import com.github.sbridges.pasta.util.ByteUtils;
 
@@ -44,37 +47,151 @@ import com.github.sbridges.pasta.util.ByteUtils;
  *  the PST. For the Unicode PST, each record in the BTH 
  *  are 8 bytes in size, where cbKey is set to 4 and cEnt 
  *  is set to 4. For an ANSI PST, each record is 6 bytes 
- *  in size, where cbKey is set to 4 and cEnt is set to 2.
+ *  in size, where cbKey is set to 4 and cEnt is set to 2.<P>
+ *  
+ * The BTH is read once, when the TC is opened.  Each TCROWID is packed 
+ * into a long, and the longs are kept twice, once in dwRowID order for 
+ * lookups, and once in dwRowIndex order, so a scan can read the Row 
+ * Matrix sequentially.  Row ids are unsigned, and are sorted as such.
  */
 public class RowIndex {
 
-    private final BTH bth;
+    //dwRowID in the high int, dwRowIndex in the low, 
+    //in BTH order, which is unsigned dwRowID order
+    private final long[] byRowId;
+    //dwRowIndex in the high int, dwRowID in the low
+    private final long[] byRowIndex;
 
     public RowIndex(BTH bth) {
-        this.bth = bth;
-        
         if(bth.getHeader().getCbEnt() != 4 | bth.getHeader().getCbKey() != 4) {
             throw new IllegalStateException("invalid row index:" + bth);
         }
+        
+        LongStream.Builder records = LongStream.builder();
+        bth.forEachLeaf(leaf -> readRecords(leaf, records));
+        byRowId = records.build().toArray();
+        for(int i = 1; i < byRowId.length; i++) {
+            if(Long.compareUnsigned(byRowId[i - 1], byRowId[i]) >= 0) {
+                throw new IllegalStateException("RowIndex not sorted, previous:" + ByteUtils.intToHex(getRowId(byRowId[i - 1])) + 
+                        " rowId:" + ByteUtils.intToHex(getRowId(byRowId[i])));
+            }
+        }
+        
+        byRowIndex = new long[byRowId.length];
+        for(int i = 0; i < byRowId.length; i++) {
+            byRowIndex[i] = (byRowId[i] << 32) | (byRowId[i] >>> 32);
+        }
+        Arrays.sort(byRowIndex);
+    }
+    
+    private static void readRecords(PstIo leaf, LongStream.Builder records) {
+        byte[] bytes = leaf.read(0, (int) leaf.size());
+        for(int offset = 0; offset < bytes.length; offset += 8) {
+            long rowId = ByteUtils.bytesToInt(bytes, offset) & 0xFFFFFFFFL;
+            long rowIndex = ByteUtils.bytesToInt(bytes, offset + 4) & 0xFFFFFFFFL;
+            records.add((rowId << 32) | rowIndex);
+        }
     }
     
     public int size() {
-        return bth.getKeys().size();
+        return byRowId.length;
     }
        
+    /**
+     * The row ids, sorted as unsigned ints 
+     */
     public List<Integer> getRowIds() {
-        List<Integer> answer = new ArrayList<>();
-        for(byte[] key : bth.getKeys()) {
-            answer.add(ByteUtils.bytesToInt(key));
-        }
-        return answer;
+        return new AbstractList<Integer>() {
+
+            @Override
+            public Integer get(int index) {
+                return getRowId(byRowId[index]);
+            }
+
+            @Override
+            public int size() {
+                return byRowId.length;
+            }
+        };
+    }
+    
+    /**
+     * The row ids, in the order their rows appear in the Row Matrix 
+     */
+    public List<Integer> getRowIdsInMatrixOrder() {
+        return new AbstractList<Integer>() {
+
+            @Override
+            public Integer get(int index) {
+                return getMatrixRowId(index);
+            }
+
+            @Override
+            public int size() {
+                return byRowIndex.length;
+            }
+        };
+    }
+    
+    /**
+     * The row id of the index'th row of the Row Matrix, indexes 
+     * are from 0 to size()  
+     */
+    public int getMatrixRowId(int index) {
+        return (int) byRowIndex[index];
+    }
+    
+    /**
+     * The row index of the index'th row of the Row Matrix, indexes 
+     * are from 0 to size()  
+     */
+    public int getMatrixRowIndex(int index) {
+        return (int) (byRowIndex[index] >>> 32);
+    }
+    
+    public boolean contains(int rowId) {
+        return indexOf(rowId) >= 0;
     }
     
     public int getRowIndex(int rowId) {
-        byte[] val = bth
-            .load(ByteUtils.intToBytesLE(rowId))
-            .orElseThrow(() -> new IllegalStateException("can't load rowId:" + rowId + " this:" + bth.debugString()));
-        return ByteUtils.bytesToInt(val);
+        int index = indexOf(rowId);
+        if(index < 0) {
+            throw new IllegalStateException("can't load rowId:" + rowId + " this:" + this);
+        }
+        return (int) byRowId[index];
+    }
+    
+    /**
+     * Binary search for rowId
+     * 
+     * @return the position of rowId in getRowIds(), or -1 if it is not present
+     */
+    private int indexOf(int rowId) {
+        int low = 0;
+        int high = byRowId.length - 1;
+        while(low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Integer.compareUnsigned(getRowId(byRowId[mid]), rowId);
+            if(cmp < 0) {
+                low = mid + 1;
+            } else if(cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+    
+    private static int getRowId(long record) {
+        return (int) (record >>> 32);
+    }
+    
+    /**
+     * Both orders of the rows, 16 bytes a row
+     */
+    public long getSizeBytes() {
+        return byRowId.length * 16L;
     }
     
     @Override
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+
+package com.github.sbridges.pasta.model.ltp.tc;
+
+import com.github.sbridges.pasta.io.PstIo;
+import com.github.sbridges.pasta.model.ndb.BTPage;
+import com.github.sbridges.pasta.model.ndb.NodeDataStream;
+
+/**
+ * 2.3.4.4 Row Matrix<P>
+ * 
+ * The rows of a TC, which are either in the TC's heap, or in a subnode 
+ * whose data may span several blocks.  Rows never span blocks, 
+ * from 2.3.4.4.1:
+ * 
+ * <pre>
+ * Rows per block = Floor((sizeof(block) – sizeof(BLOCKTRAILER)) / TCINFO.rgib[TCI_bm])
+ * Block index = N / (rows per block)
+ * Row index = N % (rows per block)
+ * </pre>
+ * 
+ * The data tree of the subnode is resolved once, by the NodeDataStream, 
+ * so finding the block of a row does no search.  The blocks themselves 
+ * come from the reader's NDBCache, which keeps their decrypted data, 
+ * and rows are returned as slices of them, without copying.
+ */
+class RowMatrix {
+
+    //null if the rows are in the heap
+    private final NodeDataStream stream;
+    //null if the rows are in a subnode
+    private final PstIo heapRows;
+    private final int rowSize;
+    private final int rowsPerBlock;
+    
+    /**
+     * Rows held in the heap, in a single block 
+     */
+    RowMatrix(PstIo rows, int rowSize) {
+        this.stream = null;
+        this.heapRows = rows;
+        this.rowSize = rowSize;
+        //an empty heap allocation still has a block
+        this.rowsPerBlock = Math.max(1, (int) (rows.size() / rowSize));
+    }
+    
+    /**
+     * Rows held in a subnode 
+     */
+    RowMatrix(NodeDataStream stream, int rowSize) {
+        this.stream = stream;
+        this.heapRows = null;
+        this.rowSize = rowSize;
+        this.rowsPerBlock = BTPage.BLOCK_MAX_SIZE_BYTES / rowSize;
+        if(rowsPerBlock == 0) {
+            throw new IllegalStateException("row too large:" + rowSize + " stream:" + stream);
+        }
+    }
+    
+    /**
+     * Get a view of the row at rowIndex 
+     */
+    PstIo getRow(int rowIndex) {
+        if(rowIndex < 0) {
+            throw new IndexOutOfBoundsException("rowIndex:" + rowIndex);
+        }
+        int blockIndex = rowIndex / rowsPerBlock;
+        int blockCount = stream == null ? 1 : stream.getBlockCount();
+        if(blockIndex >= blockCount) {
+            throw new IndexOutOfBoundsException("rowIndex:" + rowIndex + " in block:" + blockIndex + " this:" + this);
+        }
+        PstIo block = stream == null ? heapRows : stream.getBlock(blockIndex).getDataDecrypted();
+        int offset = (rowIndex % rowsPerBlock) * rowSize;
+        if(offset + rowSize > block.size()) {
+            throw new IndexOutOfBoundsException("rowIndex:" + rowIndex + " past end of block:" + blockIndex + " this:" + this);
+        }
+        return block.slice(offset, rowSize);
+    }
+    
+    int getRowsPerBlock() {
+        return rowsPerBlock;
+    }
+    
+    @Override
+    public String toString() {
+        return "RowMatrix [stream=" + stream + ", rowSize=" + rowSize + ", rowsPerBlock=" + rowsPerBlock + "]";
+    }
+}
@@ -29,6 +29,7 @@
 
 package com.github.sbridges.pasta.model.ltp.tc;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,11 +40,12 @@ import com.github.sbridges.pasta.model.ltp.hn.BClientSig;
 import com.github.sbridges.pasta.model.ltp.hn.HN;
 import com.github.sbridges.pasta.model.ltp.pc.HNID;
 import com.github.sbridges.pasta.model.ltp.pc.Property;
-import com.github.sbridges.pasta.model.ndb.BlockTrailer;
-import com.github.sbridges.pasta.model.ndb.DataBlock;
+import com.github.sbridges.pasta.model.ltp.pc.PropertyType;
 import com.github.sbridges.pasta.model.ndb.NBTEntry;
 import com.github.sbridges.pasta.model.ndb.NID;
-import com.github.sbridges.pasta.model.ndb.XBlockUtil;
+import com.github.sbridges.pasta.model.ndb.NodeDataStream;
+import com.github.sbridges.pasta.model.ndb.SLEntry;
+import com.github.sbridges.pasta.model.ndb.SubnodeBTree;
 import com.github.sbridges.pasta.util.ByteUtils;
 
 /**
@@ -97,8 +99,7 @@ public class TC {
     private final RowIndex rowIndex;
     private final PstReader reader;
     
-    private int cachedRowMatrixBlockIndex = -1;
-    private PstIo cachedRowMatrix;
+    private RowMatrix rowMatrix;
     
     public TC(PstReader reader, NID nid) {
         this.reader = reader;
@@ -110,7 +111,8 @@ public class TC {
         if(hn.getHnhdr().getbClientSig() != BClientSig.bTypeTC) {
             throw new IllegalStateException("wrong type:" + hn.getHnhdr());
         }
-        tcInfo = new TCINFO(hn.load(hn.getHidUserRoot()));
+        tcInfo = hn.getVerifier().decodeNested(
+                verify -> new TCINFO(hn.load(hn.getHidUserRoot()), verify));
         
         rowIndex = new RowIndex(new BTH(hn, tcInfo.getHidRowIndex()));
         
@@ -136,38 +138,33 @@ public class TC {
     }
 
     private PstIo getRowData(int row) {
-        //we don't want to load a block when reading each row
-        //cache the last block read
-        
-        //Rows per block = Floor((sizeof(block) – sizeof(BLOCKTRAILER)) / TCINFO.rgib[TCI_bm])
-        //Block index = N / (rows per block)
-        //Row index = N % (rows per block)
-        //Each block except the last one MUST have a size of 8192 bytes.
-        //If not, the file is considered corrupted. The size of a block is specified in the formula by sizeof(block).
-        
-        int rowPerBlock = (8192 - BlockTrailer.SIZE) / tcInfo.getTCI_bm();
-        int blockIndex = row / rowPerBlock;
-        int rowIndex = row % rowPerBlock;
-        
-        HNID tcInfoHnid = tcInfo.getHnidRows();
-
-        if(this.cachedRowMatrixBlockIndex != blockIndex) {
-            if(tcInfoHnid.isHid()) {
-                if(blockIndex != 0) {
-                    throw new IllegalStateException("in heap, but asking for block:" + blockIndex);
-                }
-                cachedRowMatrixBlockIndex = 0;
-                cachedRowMatrix = hn.load(tcInfoHnid.asHID());
+        return getRowMatrix().getRow(row);
+    }
+    
+    /**
+     * The row matrix is in the heap, or in a subnode 
+     * whose data may span several blocks 
+     */
+    RowMatrix getRowMatrix() {
+        if(rowMatrix == null) {
+            HNID hnid = tcInfo.getHnidRows();
+            if(hnid.isBlank()) {
+                throw new IllegalStateException("no rows:" + this);
+            } else if(hnid.isHid()) {
+                rowMatrix = new RowMatrix(hn.load(hnid.asHID()), tcInfo.getTCI_bm());
             } else {
-                DataBlock finalBLock = XBlockUtil.getDataBlock(rowIndex, entry.getBidSub().get(),  reader.getBBT());
-                cachedRowMatrix = finalBLock.getDataDecrypted();
-                cachedRowMatrixBlockIndex = blockIndex;
+                NID nid = hnid.asNID();
+                SLEntry slEntry = new SubnodeBTree(reader.getBBT(), entry.getBidSub().get())
+                        .load(nid)
+                        .orElseThrow(() -> new IllegalStateException("row matrix not found:" + nid + " this:" + this));
+                rowMatrix = new RowMatrix(
+                        new NodeDataStream(reader.getBBT(), slEntry.getBidData()),
+                        tcInfo.getTCI_bm());
             }
         }
-        return cachedRowMatrix.slice(rowIndex * tcInfo.getTCI_bm(), tcInfo.getTCI_bm());
+        return rowMatrix;
     }
     
-    
     public List<Property<?>> getColumns() {
         return tcInfo.getProperties();
     } 
@@ -180,28 +177,25 @@ public class TC {
         return rowIndex.getRowIds();
     }
     
+    /**
+     * The row ids in the order their rows are stored, 
+     * reading rows in this order reads the Row Matrix sequentially 
+     */
+    public List<Integer> getRowIdsInMatrixOrder() {
+        return rowIndex.getRowIdsInMatrixOrder();
+    }
+    
     public <T> Optional<T> get(int rowId, Property<T> prop) {
 
-        int index = rowIndex.getRowIndex(rowId);
-        PstIo row = getRowData(index);
-        
-        //check the rowId, this must be at position 0
-        int readRowId = row.readDw();
-        if(readRowId != rowId) {
-            throw new IllegalStateException("read:" + readRowId + " wanted:" + rowId);
-        }
+        PstIo row = findRow(rowId);
         TCOLDESC desc = tcInfo.getTColDesc(prop);
 
         //cell existence test
-        int cbStart = tcInfo.getTCI_1b() + (desc.getiBit() / 8);
-        int cbByte = 0xFF & row.readByte(cbStart);
-        int bit  = cbByte >> (7 - (desc.getiBit() % 8)) & 1;
-        if(bit == 0) {
+        if(!exists(row, desc)) {
             return Optional.empty();
         }
         
-        row.seek(desc.getIbData());
-        byte[] contents = row.read(desc.getCbData());
+        byte[] contents = row.read(desc.getIbData(), desc.getCbData());
 
         
         if(prop.getType().getSize().isVariable()) {
@@ -218,8 +212,7 @@ public class TC {
                 throw new IllegalStateException("TODO");
             }
         } else {
-            row.seek(desc.getIbData());
-            byte[] b = row.read(prop.getType().getSize().getSize());
+            byte[] b = row.read(desc.getIbData(), prop.getType().getSize().getSize());
             return Optional.of(
                     prop.getType()
                         .loadFixed(b)
@@ -227,13 +220,100 @@ public class TC {
         }
     }
     
+    /**
+     * Does the row with rowId have a value for prop 
+     */
+    public boolean hasValue(int rowId, Property<?> prop) {
+        TCOLDESC desc = tcInfo.getTColDesc(prop);
+        return exists(findRow(rowId), desc);
+    }
+    
+    /**
+     * Get a PtypInteger32 cell without boxing it, 
+     * the cell must have a value  
+     */
+    public int getInt(int rowId, Property<Integer> prop) {
+        return findCell(rowId, prop, PropertyType.PtypInteger32).readDw(0);
+    }
+    
+    /**
+     * Get a PtypBoolean cell without boxing it, 
+     * the cell must have a value  
+     */
+    public boolean getBoolean(int rowId, Property<Boolean> prop) {
+        return PropertyType.toBoolean(findCell(rowId, prop, PropertyType.PtypBoolean).readByte(0));
+    }
+    
+    /**
+     * Get a PtypInteger64 cell without boxing it, 
+     * the cell must have a value  
+     */
+    public long getLong(int rowId, Property<Long> prop) {
+        return findCell(rowId, prop, PropertyType.PtypInteger64).readLong(0);
+    }
+    
+    /**
+     * Get a PtypTime cell as a FILETIME, the number of 
+     * 100-nanosecond intervals since January 1, 1601, 
+     * the cell must have a value.
+     * 
+     * @see PropertyType#fileTimeToEpochMilli(long)
+     */
+    public long getFileTime(int rowId, Property<Instant> prop) {
+        return findCell(rowId, prop, PropertyType.PtypTime).readLong(0);
+    }
+    
+    /**
+     * Get a view of the row with rowId
+     */
+    private PstIo findRow(int rowId) {
+        PstIo row = getRowData(rowIndex.getRowIndex(rowId));
+        
+        //check the rowId, this must be at position 0
+        int readRowId = row.readDw(0);
+        if(readRowId != rowId) {
+            throw new IllegalStateException("read:" + readRowId + " wanted:" + rowId);
+        }
+        return row;
+    }
+    
+    /**
+     * Get a view of the cell for prop in the row with rowId, 
+     * checking it has a value of type
+     */
+    private PstIo findCell(int rowId, Property<?> prop, PropertyType<?> type) {
+        if(prop.getType() != type) {
+            throw new IllegalArgumentException("not a " + type.getName() + ":" + prop);
+        }
+        TCOLDESC desc = tcInfo.getTColDesc(prop);
+        if(desc.getCbData() != type.getSize().getSize()) {
+            throw new IllegalStateException("invalid cbData:" + desc + " for:" + prop);
+        }
+        PstIo row = findRow(rowId);
+        if(!exists(row, desc)) {
+            throw new IllegalStateException("no value for:" + prop + " rowId:" + rowId);
+        }
+        return row.slice(desc.getIbData(), desc.getCbData());
+    }
+    
+    /**
+     * The cell existence test 
+     */
+    private boolean exists(PstIo row, TCOLDESC desc) {
+        int cbStart = tcInfo.getTCI_1b() + (desc.getiBit() / 8);
+        int cbByte = 0xFF & row.readByte(cbStart);
+        int bit  = cbByte >> (7 - (desc.getiBit() % 8)) & 1;
+        return bit != 0;
+    }
+    
     public String debugString() {
         StringBuilder sb = new StringBuilder();
         sb.append("hn:" +  hn.debugString() + "\n");
         sb.append("tcInfo:" + tcInfo + "\n");
         sb.append("RowIndex:" + rowIndex + "\n");
-        for(int rowId : rowIndex.getRowIds()) {
-            int index = rowIndex.getRowIndex(rowId);
+        for(int i = 0; i < rowIndex.size(); i++) {
+            int rowId = rowIndex.getMatrixRowId(i);
+            int index = rowIndex.getMatrixRowIndex(i);
             String contents = getRowData(index).debugString();
             sb.append("rowId:" + rowId + " rowIdHex:" + ByteUtils.intToHex(rowId) + " index:" + index + " data:" + contents + "\n");
         }
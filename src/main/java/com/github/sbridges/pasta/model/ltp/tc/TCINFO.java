@@ -98,6 +98,14 @@ public class TCINFO {
     private final Map<Property<?>, TCOLDESC> props = new LinkedHashMap<>();
     
     public TCINFO(PstIo slice) {
+        this(slice, true);
+    }
+    
+    /**
+     * @param verify - if false, the column types and sizes, and the 
+     * header fields which are not needed to read rows, are not checked 
+     */
+    public TCINFO(PstIo slice, boolean verify) {
         bType = BClientSig.fromCode(slice.readByte());
         cCols = 0xFF & slice.readByte();
         tci4b = slice.readW();
@@ -117,29 +125,31 @@ public class TCINFO {
             short property = (short) (colDesc.getTag() >>> 16);
             short type = (short) colDesc.getTag();
             
-            Property<?> p;
-            try {
-                p = Property.fromCode(property);
-            } catch(IllegalStateException e) {
-                throw new IllegalStateException("not found:" + ByteUtils.intToHex(colDesc.getTag()),  e);
-            }
-            
-            if(p.getType().getCode() != type) {
-                throw new IllegalStateException("wrong type for:" + ByteUtils.intToBytesLE(colDesc.getTag()) + " got prop:" + p);
-            }
+            //an unknown property keeps its tag
+            Property<?> p = Property.fromTag(property, type);
             
-            if(p.getType().getSize().isVariable()) {
-                //the size of an HNID
-                if(colDesc.getCbData() != 4) {
-                    throw new IllegalStateException("invalid size:" + colDesc);
+            if(verify && p.getType().isKnown()) {
+                if(p.getType().getCode() != type) {
+                    throw new IllegalStateException("wrong type for:" + ByteUtils.intToBytesLE(colDesc.getTag()) + " got prop:" + p);
+                }
+                
+                if(p.getType().getSize().isVariable()) {
+                    //the size of an HNID
+                    if(colDesc.getCbData() != 4) {
+                        throw new IllegalStateException("invalid size:" + colDesc);
+                    }
+                } else if(p.getType().getSize().getSize() != colDesc.getCbData()) {
+                    throw new IllegalStateException("invalid size:" + colDesc + " type:" + p.getType());
                 }
-            } else if(p.getType().getSize().getSize() != colDesc.getCbData()) {
-                throw new IllegalStateException("invalid size:" + colDesc + " type:" + p.getType());
             }
             
             props.merge(p, colDesc, (l, r) -> { throw new IllegalStateException("dupe property:" + p); });
         }
         
+        if(!verify) {
+            return;
+        }
+        
         if(bType != BClientSig.bTypeTC) {
             throw new IllegalStateException("invalid bType:" + this);
         }
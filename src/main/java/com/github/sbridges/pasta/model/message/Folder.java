@@ -184,6 +184,10 @@ public class Folder {
         return getPc().load(Property.PidTagDisplayName);
     }
 
+    public NID getNid() {
+        return nid;
+    }
+    
     public PC getPc() {
         return pc;
     }
@@ -103,4 +103,8 @@ public class Message {
         return pc;
     }
     
+    public NID getNid() {
+        return nid;
+    }
+    
 }
@@ -30,17 +30,18 @@
 package com.github.sbridges.pasta.model.ndb;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.github.sbridges.pasta.io.PstIo;
 import com.github.sbridges.pasta.model.BCryptMethod;
 import com.github.sbridges.pasta.model.BID;
 import com.github.sbridges.pasta.model.BRef;
-import com.github.sbridges.pasta.model.Page;
-import com.github.sbridges.pasta.util.CollectionUtils;
+import com.github.sbridges.pasta.model.Verifier;
 
 /**
  *  Block BTree (BBT)
@@ -49,12 +50,25 @@ public class BBT {
     private final BCryptMethod bCryptMethod;
     private final BRef BREFBBT;
     private final PstIo io;
+    private final NDBCache cache;
+    private final Verifier verifier;
+    private volatile BBTIndex index;
     
     
     public BBT(BCryptMethod bCryptMethod, BRef bREFBBT, PstIo io) {
+        this(bCryptMethod, bREFBBT, io, new NDBCache(0));
+    }
+    
+    public BBT(BCryptMethod bCryptMethod, BRef bREFBBT, PstIo io, NDBCache cache) {
+        this(bCryptMethod, bREFBBT, io, cache, Verifier.STRICT);
+    }
+    
+    public BBT(BCryptMethod bCryptMethod, BRef bREFBBT, PstIo io, NDBCache cache, Verifier verifier) {
         this.bCryptMethod = bCryptMethod;
         BREFBBT = bREFBBT;
         this.io = io;
+        this.cache = cache;
+        this.verifier = verifier;
     }
 
     public BRef getBREFBBT() {
@@ -64,6 +78,14 @@ public class BBT {
     public PstIo getIo() {
         return io;
     }
+    
+    public NDBCache getCache() {
+        return cache;
+    }
+    
+    public Verifier getVerifier() {
+        return verifier;
+    }
 
 
     @Override
@@ -72,13 +94,71 @@ public class BBT {
     }
     
     private BTPage getRoot() {
-        return new BTPage(new Page(BREFBBT, io));
+        return cache.getBTPage(BREFBBT, io, verifier);
     }
 
     public Optional<BBTEntry> find(BID bid) {
+        BBTIndex index = this.index;
+        if(index != null) {
+            return index.find(bid);
+        }
         return find(bid, getRoot());
     }
     
+    /**
+     * Find the entries for several bids at once.<P>
+     * 
+     * The bids are sorted and found with one descent of the tree, 
+     * which reads each page at most once, rather than a descent 
+     * from the root for each bid.
+     * 
+     * @return the entry for each bid, in the same order as bids
+     */
+    public List<Optional<BBTEntry>> findAll(BID... bids) {
+        long[] keys = new long[bids.length];
+        for(int i = 0; i < bids.length; i++) {
+            keys[i] = bids[i].getBid();
+        }
+        return findAll(keys);
+    }
+    
+    /**
+     * Like findAll(BID...), with the bids as longs 
+     */
+    public List<Optional<BBTEntry>> findAll(long[] bids) {
+        List<Optional<BBTEntry>> answer = new ArrayList<>(bids.length);
+        BBTIndex index = this.index;
+        if(index != null) {
+            for(long bid : bids) {
+                answer.add(index.find(new BID(bid)));
+            }
+            return answer;
+        }
+        
+        long[] sorted = BTreeUtil.sortedUnique(bids);
+        BBTEntry[] found = new BBTEntry[sorted.length];
+        BTreeUtil.findAll(sorted, getRoot(), io, cache, verifier, 
+                (keyIndex, leaf, entryIndex) -> found[keyIndex] = leaf.getBBTEntry(entryIndex));
+        for(long bid : bids) {
+            answer.add(Optional.ofNullable(found[Arrays.binarySearch(sorted, bid)]));
+        }
+        return answer;
+    }
+    
+    /**
+     * Read every leaf of this BBT into an in memory index, 
+     * after which find and load(BID) do no io to find a block.
+     */
+    public BBTIndex buildIndex() {
+        BBTIndex answer = BBTIndex.build(this);
+        index = answer;
+        return answer;
+    }
+    
+    public Optional<BBTIndex> getIndex() {
+        return Optional.ofNullable(index);
+    }
+    
     public DataBlock load(BID bid) {
         Optional<BBTEntry> entry = find(bid);
         if(entry.isPresent()) {
@@ -88,59 +168,93 @@ public class BBT {
     }
     
     public DataBlock load(BBTEntry bbtEntry) {
-        return new DataBlock(
+        //an encrypted block keeps its decrypted data as well, once it is read
+        int sizeBytes = bbtEntry.getBlockSizeInclusive();
+        if(bCryptMethod != BCryptMethod.NDB_CRYPT_NONE) {
+            sizeBytes *= 2;
+        }
+        return cache.get(bbtEntry.getBRef().getIb(), sizeBytes, () -> loadUncached(bbtEntry));
+    }
+    
+    /**
+     * Load a block without going through the cache.<P>
+     * 
+     * For callers which stream through many blocks once, 
+     * and should not evict the pages and blocks other readers 
+     * use repeatedly.
+     */
+    public DataBlock loadUncached(BBTEntry bbtEntry) {
+        return verifier.decode(bbtEntry.getBRef().getIb(), verify -> new DataBlock(
                 bCryptMethod,
                 bbtEntry.getBRef(), bbtEntry.getCb(),
                 io.slice(
-                        bbtEntry.getBRef().getIb(), bbtEntry.getBlockSizeInclusive())
-                );
-
+                        bbtEntry.getBRef().getIb(), bbtEntry.getBlockSizeInclusive()),
+                verify
+                ));
     }
 
     private Optional<BBTEntry> find(BID bid, BTPage page) {
         
-        Optional<BTPage> leaf = BTreeUtil.findLeaf(bid.getBid(), page, io);
+        Optional<BTPage> leaf = BTreeUtil.findLeaf(bid.getBid(), page, io, cache, verifier);
         if(!leaf.isPresent()) {
             return Optional.empty();
         }
         
         
         if(leaf.get().isLeaf()) {
-            for(BBTEntry e : leaf.get().getBBTEntries()) {
-                if(e.getBRef().getBid().equals(bid)) {
-                    return Optional.of(e);
-                }
+            int index = leaf.get().find(bid.getBid());
+            if(index < 0) {
+                return Optional.empty();
             }
-            return Optional.empty();
+            return Optional.of(leaf.get().getBBTEntry(index));
         } else {
             throw new IllegalStateException("not leaf:" + leaf.get());
         }
     }
     
     public Iterable<DataBlock> getBlocks() {
-        List<BBTEntry> entries = new ArrayList<>();
-        walkDepthFirst(btPage -> {
-            if(btPage.isLeaf()) {
-                for(BBTEntry e : btPage.getBBTEntries()) {
-                    entries.add(e);
-                }
-            }
-        });
-        
-        return new Iterable<DataBlock>() {
-            @Override
-            public Iterator<DataBlock> iterator() {
-                return CollectionUtils.transform(entries.iterator(), e -> new DataBlock(
-                        bCryptMethod, e.getBRef(), e.getCb(), io));
-            }};
+        return () -> entries().map(this::load).iterator();
+    }
+    
+    /**
+     * Stream every entry of this BBT in bid order.<P>
+     * 
+     * Pages are read as the stream reaches them, and the stream 
+     * splits into whole subtrees, so it may be used in parallel.
+     */
+    public Stream<BBTEntry> entries() {
+        return StreamSupport.stream(
+                new BTreeSpliterator<>(getRoot(), io, cache, verifier, BTPage::getBBTEntry), 
+                false);
+    }
+    
+    /**
+     * Stream the entries of this BBT with from <= bid < to, in bid order.<P>
+     * 
+     * Only the pages whose keys overlap the range are read.
+     */
+    public Stream<BBTEntry> entries(BID from, BID to) {
+        return entries(from.getBid(), to.getBid());
+    }
+    
+    /**
+     * Like entries(BID, BID), with the bids as longs
+     */
+    public Stream<BBTEntry> entries(long from, long to) {
+        if(to <= from) {
+            return Stream.empty();
+        }
+        return StreamSupport.stream(
+                new BTreeSpliterator<>(getRoot(), io, cache, verifier, BTPage::getBBTEntry, from, to - 1, null), 
+                false);
     }
     
     public void walkDepthFirst(Consumer<BTPage> consumer) {
-        BTreeUtil.walkDepthFirst(getRoot(), io, consumer);
+        BTreeUtil.walkDepthFirst(getRoot(), io, verifier, consumer);
     }
     
     public String debugString() {
-        return BTreeUtil.debugString(getRoot(), io);
+        return BTreeUtil.debugString(getRoot(), io, verifier);
     }
     
 }
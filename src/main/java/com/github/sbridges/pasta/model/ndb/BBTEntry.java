@@ -53,6 +53,16 @@ public class BBTEntry {
     //references to this block. See section 2.2.2.7.7.3.1 regarding how reference counts work.
     private final int cRef;
     
+    public BBTEntry(BRef bRef, int cb, int cRef) {
+        this.bRef = bRef;
+        this.cb = cb;
+        this.cRef = cRef;
+        
+        if(cb <= 0 || cRef <= 0) {
+            throw new IllegalStateException("invalid:" + this);
+        }
+    }
+    
     public BBTEntry(PstIo slice) {
         bRef = new BRef(slice.sliceAndSkip(16));
         cb = slice.readW();
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ndb;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import com.github.sbridges.pasta.model.BID;
+import com.github.sbridges.pasta.model.BRef;
+
+/**
+ * An in memory index of every BBTEntry in a BBT.<P>
+ * 
+ * The entries are held in parallel arrays sorted by bid, so 
+ * a lookup is a binary search with no io.  This costs 20 bytes 
+ * per block in the pst file.<P>
+ * 
+ * It is built once, when the BBT is indexed, and is never changed,
+ * so every thread reading the BBT shares it without locking.
+ */
+public class BBTIndex {
+
+    private final long[] bids;
+    private final long[] ibs;
+    //cb in the high 2 bytes, cRef in the low, 
+    //both are unsigned 2 byte values
+    private final int[] cbcRefs;
+    
+    private BBTIndex(long[] bids, long[] ibs, int[] cbcRefs) {
+        this.bids = bids;
+        this.ibs = ibs;
+        this.cbcRefs = cbcRefs;
+    }
+    
+    /**
+     * Build an index by reading every leaf page of bbt 
+     */
+    public static BBTIndex build(BBT bbt) {
+        LongStream.Builder bids = LongStream.builder();
+        LongStream.Builder ibs = LongStream.builder();
+        IntStream.Builder cbcRefs = IntStream.builder();
+        bbt.entries().forEachOrdered(entry -> {
+            bids.add(entry.getBRef().getBid().getBid());
+            ibs.add(entry.getBRef().getIb());
+            cbcRefs.add((entry.getCb() << 16) | (char) entry.getcRef());
+        });
+        
+        long[] sorted = bids.build().toArray();
+        //a depth first walk visits the leaves in order
+        for(int i = 1; i < sorted.length; i++) {
+            if(sorted[i - 1] >= sorted[i]) {
+                throw new IllegalStateException("BBT not sorted, previous:" + sorted[i - 1] + " bid:" + sorted[i]);
+            }
+        }
+        return new BBTIndex(sorted, ibs.build().toArray(), cbcRefs.build().toArray());
+    }
+    
+    public Optional<BBTEntry> find(BID bid) {
+        int index = Arrays.binarySearch(bids, bid.getBid());
+        if(index < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(getEntry(index));
+    }
+    
+    public int size() {
+        return bids.length;
+    }
+    
+    /**
+     * The memory used by the index arrays
+     */
+    public long getSizeBytes() {
+        return bids.length * (8L + 8 + 2 + 2);
+    }
+
+    private BBTEntry getEntry(int index) {
+        return new BBTEntry(
+                new BRef(new BID(bids[index]), ibs[index]), 
+                (char) (cbcRefs[index] >>> 16), 
+                (char) cbcRefs[index]);
+    }
+
+    @Override
+    public String toString() {
+        return "BBTIndex [size=" + size() + ", sizeBytes=" + getSizeBytes() + "]";
+    }
+}
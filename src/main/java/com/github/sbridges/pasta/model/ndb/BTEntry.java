@@ -56,6 +56,11 @@ public class BTEntry {
         bRef = new BRef(slice.sliceAndSkip(16));
         slice.assertExhausted();
     }
+    
+    public BTEntry(long btkey, BRef bRef) {
+        this.btkey = btkey;
+        this.bRef = bRef;
+    }
 
     public long getBtkey() {
         return btkey;
@@ -29,20 +29,28 @@
 
 package com.github.sbridges.pasta.model.ndb;
 
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
-import java.util.TreeSet;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
 
+import com.github.sbridges.pasta.io.InMemoryPstIo;
 import com.github.sbridges.pasta.io.PstIo;
+import com.github.sbridges.pasta.model.BID;
+import com.github.sbridges.pasta.model.BRef;
 import com.github.sbridges.pasta.model.PType;
 import com.github.sbridges.pasta.model.Page;
-import com.github.sbridges.pasta.util.CollectionUtils;
+import com.github.sbridges.pasta.util.ByteUtils;
 
 /**
  * 2.2.2.7.7.1 BTPAGE
  * 
- * A BTPAGE structure implements a generic BTree using 512-byte pages.
+ * A BTPAGE structure implements a generic BTree using 512-byte pages.<P>
+ * 
+ * The page is decoded in one pass when it is constructed.  The keys, 
+ * and for intermediate pages the child BREFs, are held in primitive 
+ * arrays, and the page does not keep a reference to the io it was 
+ * read from.  Leaf entries are kept as raw bytes and are only 
+ * decoded when asked for.  
  */
 public class BTPage {
     
@@ -66,14 +74,38 @@ public class BTPage {
     //than 0. This value determines the     
     private final byte cLevel;
     
-    private final Page page;
+    private final long ib;
+    private final PType pType;
+    
+    //the key of each entry
+    private final long[] keys;
+    //for intermediate pages, the BREF of each child, otherwise null
+    private final long[] childBids;
+    private final long[] childIbs;
+    //for leaf pages, the cEnt * cbEnt bytes of the entries, otherwise null
+    private final byte[] leafEntries;
+    //the root io, passed on to the slices leaf entries are decoded from
+    private final PstIo root;
 
     public BTPage(Page page) {
-        this.page = page;
-        this.cEnt = page.getSlice().readByte(META_OFFSET);
-        this.cEntMax = page.getSlice().readByte(META_OFFSET + 1);
-        this.cbEnt = page.getSlice().readByte(META_OFFSET + 2);
-        this.cLevel = page.getSlice().readByte(META_OFFSET + 3);
+        this(page, true);
+    }
+    
+    /**
+     * @param verify - if false, only the checks needed to read 
+     * the entries safely are done, the padding and key order are not checked 
+     */
+    public BTPage(Page page, boolean verify) {
+        this.ib = page.getIb();
+        this.pType = page.getPageTrailer().getpType();
+        this.root = page.getSlice().getRoot();
+        
+        //the entries and the metadata, but not the trailer
+        byte[] bytes = page.getSlice().read(0, META_OFFSET + 8);
+        this.cEnt = bytes[META_OFFSET];
+        this.cEntMax = bytes[META_OFFSET + 1];
+        this.cbEnt = bytes[META_OFFSET + 2];
+        this.cLevel = bytes[META_OFFSET + 3];
         if(cLevel < 0) {
             throw new IllegalStateException("invalid cLevel:" + cLevel + " BTPage:" + this);
         }
@@ -89,39 +121,56 @@ public class BTPage {
         if(cEntMax != META_OFFSET / cbEnt) {
             throw new IllegalStateException("invalid cEntMax:" + cEntMax  + " cbEnt:" + cbEnt + " BTPage:" + this);
         }
-        if(cEnt > cEntMax) {
+        if(cEnt < 0 || cEnt > cEntMax) {
             throw new IllegalStateException("invalid cEnt:" + cEnt  + " cEntMax:" + cEntMax + " BTPage:" + this);
         }
-        if(cbEnt > BLOCK_MAX_SIZE_BYTES) {
-            throw new IllegalStateException("cbEnt too large:" + this);
+        
+        if(!isBBT() && !isNBT()) {
+            throw new IllegalStateException("invalid type:" + this);
+        }
+        
+        keys = new long[cEnt];
+        for(int i = 0; i < cEnt; i++) {
+            keys[i] = ByteUtils.bytesToLong(bytes, i * cbEnt);
+        }
+        if(isLeaf()) {
+            childBids = null;
+            childIbs = null;
+            leafEntries = new byte[cEnt * cbEnt];
+            System.arraycopy(bytes, 0, leafEntries, 0, leafEntries.length);
+        } else {
+            //BTENTRY, btkey then BREF
+            childBids = new long[cEnt];
+            childIbs = new long[cEnt];
+            for(int i = 0; i < cEnt; i++) {
+                childBids[i] = ByteUtils.bytesToLong(bytes, i * cbEnt + 8);
+                childIbs[i] = ByteUtils.bytesToLong(bytes, i * cbEnt + 16);
+            }
+            leafEntries = null;
+        }
+        
+        if(!verify) {
+            return;
         }
         
         //dwPadding (Unicode: 4 bytes): Padding; MUST be set to zero. 
         //Note there is no padding in the ANSI version of this structure.
         for(int i =0; i < 4; i++) {
-            if(page.getSlice().readByte(META_OFFSET + 4 + i) != 0) {
+            if(bytes[META_OFFSET + 4 + i] != 0) {
                 throw new IllegalStateException("invalid dwPadding  BTPage:" + this);
             }
         }  
         
-        if(!isBBT() && !isNBT()) {
-            throw new IllegalStateException("invalid type:" + this);
-        }
-        
-        
         if(!isLeaf()) {
-            TreeSet<Long> sortedOrder = new TreeSet<>();
-            List<Long> actualOrder = new ArrayList<>();
-            for(BTEntry entry : getBTEntries()) {
-                sortedOrder.add(entry.getBtkey());
-                actualOrder.add(entry.getBtkey());
-            }
-            
-            if(!actualOrder.equals(new ArrayList<>(sortedOrder))) {
-                throw new IllegalStateException(
-                        "BTPage not sorted, actual:" + actualOrder +
-                        " sorted:" + sortedOrder +
-                        " this:" + this);
+            //keys must be strictly increasing
+            for(int i = 1; i < cEnt; i++) {
+                if(keys[i - 1] >= keys[i]) {
+                    throw new IllegalStateException(
+                            "BTPage not sorted, key:" + keys[i - 1] + 
+                            " at:" + (i - 1) + 
+                            " is not less than:" + keys[i] + 
+                            " this:" + this);
+                }
             }
         }
         
@@ -148,61 +197,131 @@ public class BTPage {
     }
     
     public boolean isNBT() {
-        return page.getPageTrailer().getpType() == PType.ptypeNBT;
+        return pType == PType.ptypeNBT;
     }
     
     public boolean isBBT() {
-        return page.getPageTrailer().getpType() == PType.ptypeBBT;
+        return pType == PType.ptypeBBT;
     }
     
     public Iterable<BTEntry> getBTEntries() {
         if(isLeaf()) {
             throw new IllegalStateException("not a leaf:" + this);
         }
-        return new Iterable<BTEntry>() {
-            
-            @Override
-            public Iterator<BTEntry> iterator() {
-                return CollectionUtils.transform(getChunks(), b -> new BTEntry(b));
-            }
-        };
+        return () -> iterator(this::getBTEntry);
     }
     
     public Iterable<BBTEntry> getBBTEntries() {
         if(!isLeaf() || !isBBT()) {
             throw new IllegalStateException("not a leaf BBT:" + this);
         }
-        return new Iterable<BBTEntry>() {
-            
-            @Override
-            public Iterator<BBTEntry> iterator() {
-                return CollectionUtils.transform(getChunks(), b -> new BBTEntry(b));
-            }
-        };
+        return () -> iterator(this::getBBTEntry);
     }
     
     public Iterable<NBTEntry> getNBTEntries() {
         if(!isLeaf() || !isNBT()) {
             throw new IllegalStateException("not a leaf BBT:" + this);
         }
-        return new Iterable<NBTEntry>() {
-            
-            @Override
-            public Iterator<NBTEntry> iterator() {
-                return CollectionUtils.transform(getChunks(), b -> new NBTEntry(b));
-            }
-        };
+        return () -> iterator(this::getNBTEntry);
+    }
+
+    /**
+     * Get the key of the index'th entry without decoding the entry.<P>
+     * 
+     * This is the btkey of a BTEntry, the bid of a BBTEntry, or the nid of an NBTEntry.
+     */
+    public long getKey(int index) {
+        checkIndex(index);
+        return keys[index];
+    }
+    
+    /**
+     * Binary search for the last entry whose key is less than or equal to key
+     * 
+     * @return the index of the entry, or -1 if all keys are greater than key
+     */
+    public int findFloor(long key) {
+        return BTreeUtil.floor(keys, key);
+    }
+    
+    /**
+     * Binary search for the entry with key
+     * 
+     * @return the index of the entry, or -1 if there is no entry for key
+     */
+    public int find(long key) {
+        int answer = findFloor(key);
+        if(answer >= 0 && keys[answer] == key) {
+            return answer;
+        }
+        return -1;
+    }
+    
+    /**
+     * Get the BREF of the index'th child of an intermediate page,
+     * without creating the BTEntry  
+     */
+    public BRef getChildBRef(int index) {
+        if(isLeaf()) {
+            throw new IllegalStateException("not a leaf:" + this);
+        }
+        checkIndex(index);
+        return new BRef(new BID(childBids[index]), childIbs[index]);
+    }
+    
+    public BTEntry getBTEntry(int index) {
+        return new BTEntry(getKey(index), getChildBRef(index));
+    }
+    
+    public BBTEntry getBBTEntry(int index) {
+        if(!isLeaf() || !isBBT()) {
+            throw new IllegalStateException("not a leaf BBT:" + this);
+        }
+        return new BBTEntry(getChunk(index));
+    }
+    
+    public NBTEntry getNBTEntry(int index) {
+        if(!isLeaf() || !isNBT()) {
+            throw new IllegalStateException("not a leaf NBT:" + this);
+        }
+        return new NBTEntry(getChunk(index));
     }
 
     @Override
     public String toString() {
-        return "BTPage [page=" + page + ", cEnt=" + cEnt + ", cEntMax=" + cEntMax + ", cbEnt="
+        return "BTPage [ib=" + ib + ", pType=" + pType + ", cEnt=" + cEnt + ", cEntMax=" + cEntMax + ", cbEnt="
                 + cbEnt + ", cLevel=" + cLevel + "]";
     }
     
-    private Iterator<PstIo> getChunks() {
-        return page.getSlice().chunk(0, cEnt, cbEnt);
+    private <T> Iterator<T> iterator(IntFunction<T> entry) {
+        return new Iterator<T>() {
+            private int index = 0;
+            
+            @Override
+            public boolean hasNext() {
+                return index < cEnt;
+            }
+
+            @Override
+            public T next() {
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return entry.apply(index++);
+            }
+        };
     } 
     
+    private PstIo getChunk(int index) {
+        checkIndex(index);
+        return new InMemoryPstIo(root, leafEntries, index * cbEnt, cbEnt);
+    }
+    
+    private void checkIndex(int index) {
+        if(index < 0 || index >= cEnt) {
+            throw new IndexOutOfBoundsException("index:" + index + " cEnt:" + cEnt);
+        }
+    }
+    
     
 }
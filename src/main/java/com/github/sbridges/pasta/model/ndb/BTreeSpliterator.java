@@ -0,0 +1,232 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+
+package com.github.sbridges.pasta.model.ndb;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+import com.github.sbridges.pasta.io.PstIo;
+import com.github.sbridges.pasta.model.Verifier;
+
+/**
+ * A Spliterator over the leaf entries of a BBT or NBT, in key order.<P>
+ * 
+ * Pages are read as they are reached, and only the path from the 
+ * root to the current leaf is held, so a traversal uses memory 
+ * proportional to the depth of the tree.  trySplit hands off the 
+ * first half of the unvisited children of the shallowest intermediate 
+ * page which has at least two, so each split is a set of whole subtrees.<P>
+ * 
+ * A traversal may be bounded to a key range, in which case the keys of 
+ * intermediate entries are used to skip the subtrees outside the range, 
+ * and may filter on the key, which is tested before the entry is decoded.
+ */
+class BTreeSpliterator<T> implements Spliterator<T> {
+
+    //the fill of a typical page, used to estimate the size of a subtree
+    private static final int ESTIMATED_FANOUT = 15;
+    
+    private final PstIo io;
+    private final NDBCache cache;
+    private final Verifier verifier;
+    private final LeafReader<T> reader;
+    //the keys to visit, both inclusive
+    private final long first;
+    private final long last;
+    //may be null
+    private final LongPredicate keyFilter;
+    
+    //the path from the shallowest page this covers to the current page
+    //the first is the shallowest
+    private final Deque<Frame> path;
+    
+    BTreeSpliterator(BTPage root, PstIo io, NDBCache cache, Verifier verifier, LeafReader<T> reader) {
+        this(root, io, cache, verifier, reader, Long.MIN_VALUE, Long.MAX_VALUE, null);
+    }
+    
+    /**
+     * @param first the first key to visit
+     * @param last the last key to visit, inclusive
+     * @param keyFilter if not null, only leaf entries whose key passes are visited
+     */
+    BTreeSpliterator(BTPage root, PstIo io, NDBCache cache, Verifier verifier, LeafReader<T> reader, 
+            long first, long last, LongPredicate keyFilter) {
+        this(new ArrayDeque<>(), io, cache, verifier, reader, first, last, keyFilter);
+        if(first <= last) {
+            path.add(newFrame(root));
+        }
+    }
+    
+    private BTreeSpliterator(Deque<Frame> path, PstIo io, NDBCache cache, Verifier verifier, LeafReader<T> reader,
+            long first, long last, LongPredicate keyFilter) {
+        this.path = path;
+        this.io = io;
+        this.cache = cache;
+        this.verifier = verifier;
+        this.reader = reader;
+        this.first = first;
+        this.last = last;
+        this.keyFilter = keyFilter;
+    }
+    
+    /**
+     * A frame over the entries of page which may hold keys in [first, last]
+     */
+    private Frame newFrame(BTPage page) {
+        int end = page.findFloor(last) + 1;
+        int next;
+        if(!page.isLeaf()) {
+            //the child whose range starts at or before first may hold first
+            next = Math.max(0, page.findFloor(first));
+        } else if(first == Long.MIN_VALUE) {
+            next = 0;
+        } else {
+            next = page.findFloor(first - 1) + 1;
+        }
+        return new Frame(page, next, end);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while(!path.isEmpty()) {
+            Frame frame = path.getLast();
+            if(frame.next == frame.end) {
+                path.removeLast();
+            } else if(frame.page.isLeaf()) {
+                int index = frame.next++;
+                if(accept(frame.page, index)) {
+                    action.accept(reader.read(frame.page, index));
+                    return true;
+                }
+            } else {
+                BTPage child = cache.getBTPage(frame.page.getChildBRef(frame.next++), io, verifier);
+                path.addLast(newFrame(child));
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while(!path.isEmpty()) {
+            Frame frame = path.getLast();
+            if(frame.page.isLeaf()) {
+                while(frame.next < frame.end) {
+                    int index = frame.next++;
+                    if(accept(frame.page, index)) {
+                        action.accept(reader.read(frame.page, index));
+                    }
+                }
+                path.removeLast();
+            } else if(frame.next == frame.end) {
+                path.removeLast();
+            } else {
+                BTPage child = cache.getBTPage(frame.page.getChildBRef(frame.next++), io, verifier);
+                path.addLast(newFrame(child));
+            }
+        }
+    }
+    
+    private boolean accept(BTPage leaf, int index) {
+        return keyFilter == null || keyFilter.test(leaf.getKey(index));
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        Deque<Frame> prefix = new ArrayDeque<>();
+        Iterator<Frame> frames = path.iterator();
+        while(frames.hasNext()) {
+            Frame frame = frames.next();
+            if(!frame.page.isLeaf() && frame.end - frame.next >= 2) {
+                int mid = frame.next + (frame.end - frame.next) / 2;
+                //the prefix takes the children before mid, and any page 
+                //below frame we are part way through
+                prefix.addLast(new Frame(frame.page, frame.next, mid));
+                while(frames.hasNext()) {
+                    prefix.addLast(frames.next());
+                }
+                
+                //this keeps the children from mid on, and the frames above frame,
+                //which are visited after them
+                while(path.getLast() != frame) {
+                    path.removeLast();
+                }
+                frame.next = mid;
+                return new BTreeSpliterator<>(prefix, io, cache, verifier, reader, first, last, keyFilter);
+            }
+            //the children left in frames above the split point 
+            //come after the split, so stay with this
+        }
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        long answer = 0;
+        for(Frame frame : path) {
+            long subtreeSize = 1;
+            for(int i = 0; i < frame.page.getCLevel(); i++) {
+                subtreeSize *= ESTIMATED_FANOUT;
+            }
+            answer += (frame.end - frame.next) * subtreeSize;
+        }
+        return answer;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+    
+    /**
+     * Decodes the index'th entry of a leaf page 
+     */
+    @FunctionalInterface
+    interface LeafReader<T> {
+        T read(BTPage leaf, int index);
+    }
+    
+    private static class Frame {
+        private final BTPage page;
+        //the next entry to read, or child to descend into
+        private int next;
+        private final int end;
+        
+        Frame(BTPage page, int next, int end) {
+            this.page = page;
+            this.next = next;
+            this.end = end;
+        }
+    }
+}
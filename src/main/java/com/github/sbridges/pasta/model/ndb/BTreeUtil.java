@@ -29,11 +29,16 @@
 
 package com.github.sbridges.pasta.model.ndb;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.Optional;
 import java.util.function.Consumer;
 
 import com.github.sbridges.pasta.io.PstIo;
+import com.github.sbridges.pasta.model.BRef;
 import com.github.sbridges.pasta.model.Page;
+import com.github.sbridges.pasta.model.Verifier;
 
 /**
  * Utils for BTree's, callers should typically use the methods on BBT or NBT instead
@@ -42,47 +47,143 @@ class BTreeUtil {
     
     private BTreeUtil() {}
     
-    public static void walkDepthFirst(BTPage btPage, PstIo io, Consumer<BTPage> consumer) {
-        consumer.accept(btPage);
-        
-        if(!btPage.isLeaf()) {
-          for(BTEntry entry : btPage.getBTEntries()) {
-              Page childPage = new Page(entry.getbRef(), io); 
-              BTPage childBtPage = new BTPage(childPage);
-              consumer.accept(childBtPage);
-              walkDepthFirst(childBtPage, io, consumer);
-          }  
+    /**
+     * Read the BTPage ref points to, verifying it if verifier says to 
+     */
+    public static BTPage readPage(BRef ref, PstIo io, Verifier verifier) {
+        return verifier.decode(ref.getIb(), verify -> new BTPage(new Page(ref, io, verify), verify));
+    }
+    
+    /**
+     * Visit btPage and every page below it once, parents before their children 
+     */
+    public static void walkDepthFirst(BTPage btPage, PstIo io, Verifier verifier, Consumer<BTPage> consumer) {
+        //an explicit stack rather than recursion
+        Deque<BTPage> pending = new ArrayDeque<>();
+        pending.push(btPage);
+        while(!pending.isEmpty()) {
+            BTPage page = pending.pop();
+            consumer.accept(page);
+            if(!page.isLeaf()) {
+                //push in reverse, so children are visited in key order
+                for(int i = page.getCEnt() - 1; i >= 0; i--) {
+                    pending.push(readPage(page.getChildBRef(i), io, verifier));
+                }
+            }
         }
     }
     
     
-    public static String debugString(BTPage page, PstIo io) {
+    public static String debugString(BTPage page, PstIo io, Verifier verifier) {
         StringBuilder sb = new StringBuilder();
-        debugString(sb, io, page, 0);
+        debugString(sb, io, verifier, page, 0);
         return sb.toString();
         
     }
     
-    public static Optional<BTPage> findLeaf(long key, BTPage page, PstIo io) {
+    public static Optional<BTPage> findLeaf(long key, BTPage page, PstIo io, NDBCache cache, Verifier verifier) {
         if(page.isLeaf()) {
             return Optional.of(page);
         }
-        BTEntry last = null;
-        for(BTEntry e : page.getBTEntries()) {
-            if(e.getBtkey() > key) {
-                break;
-            }
-            last = e;
-        }
-        if(last == null) {
+        int index = page.findFloor(key);
+        if(index < 0) {
             return Optional.empty();
         } else {
-            return findLeaf(key, new BTPage(new Page(last.getbRef(), io)), io);
+            return findLeaf(key, cache.getBTPage(page.getChildBRef(index), io, verifier), io, cache, verifier);
         }
         
     }
-
-    private static void debugString(StringBuilder sb, PstIo io, BTPage page, int depth) {
+    
+    /**
+     * Find every key in keys with one descent of the tree, each page 
+     * is read at most once.<P>
+     * 
+     * @param keys - sorted, with no duplicates
+     * @param found - called with the index in keys, and the leaf and index 
+     * in the leaf, of each key which is found
+     */
+    public static void findAll(long[] keys, BTPage page, PstIo io, NDBCache cache, Verifier verifier, Found found) {
+        findAll(keys, 0, keys.length, page, io, cache, verifier, found);
+    }
+    
+    private static void findAll(long[] keys, int from, int to, BTPage page, PstIo io, NDBCache cache, Verifier verifier, Found found) {
+        if(page.isLeaf()) {
+            for(int i = from; i < to; i++) {
+                int index = page.find(keys[i]);
+                if(index >= 0) {
+                    found.found(i, page, index);
+                }
+            }
+            return;
+        }
+        
+        //keys before the first child's btkey are not in the tree
+        int start = page.getCEnt() == 0 ? to : lowerBound(keys, from, to, page.getKey(0));
+        for(int child = 0; child < page.getCEnt() && start < to; child++) {
+            //the keys from start up to the next child's btkey belong to this child
+            int end = child + 1 < page.getCEnt() ? lowerBound(keys, start, to, page.getKey(child + 1)) : to;
+            if(end > start) {
+                BTPage childPage = cache.getBTPage(page.getChildBRef(child), io, verifier);
+                findAll(keys, start, end, childPage, io, cache, verifier, found);
+            }
+            start = end;
+        }
+    }
+    
+    /**
+     * @return the index of the first key in keys[from, to) which is >= key, or to 
+     */
+    private static int lowerBound(long[] keys, int from, int to, long key) {
+        int low = from;
+        int high = to;
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+            if(keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Sort keys and remove duplicates, for findAll 
+     */
+    static long[] sortedUnique(long[] keys) {
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for(int i = 0; i < sorted.length; i++) {
+            if(count == 0 || sorted[count - 1] != sorted[i]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return count == sorted.length ? sorted : Arrays.copyOf(sorted, count);
+    }
+    
+    /**
+     * Binary search keys for the last key less than or equal to key
+     * 
+     * @return the index of the key, or -1 if all keys are greater than key
+     */
+    static int floor(long[] keys, long key) {
+        int low = 0;
+        int high = keys.length - 1;
+        int answer = -1;
+        while(low <= high) {
+            int mid = (low + high) >>> 1;
+            if(keys[mid] <= key) {
+                answer = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return answer;
+    }
+    
+    private static void debugString(StringBuilder sb, PstIo io, Verifier verifier, BTPage page, int depth) {
 
         
         if(page.isLeaf()) {
@@ -107,12 +208,20 @@ class BTreeUtil {
                 sb.append(e);
                 sb.append("\n");
                 debugString(
-                        sb, io, new BTPage(new Page(e.getbRef(), io)), depth + 1
+                        sb, io, verifier, readPage(e.getbRef(), io, verifier), depth + 1
                         );
             }
         }
     }
     
+    /**
+     * Receives the results of findAll 
+     */
+    @FunctionalInterface
+    interface Found {
+        void found(int keyIndex, BTPage leaf, int entryIndex);
+    }
+    
     private static void indent(StringBuilder sb, int depth) {
         for(int i = 0; i < depth; i++) {
             sb.append("  ");
@@ -69,6 +69,15 @@ public class BlockTrailer {
 
     
     public BlockTrailer(BRef bref, int blockCrc, PstIo slice) {
+        this(bref, slice);
+        verify(bref, blockCrc);
+    }
+    
+    /**
+     * Read a trailer without checking its signature or crc,
+     * see verify(BRef, int)
+     */
+    public BlockTrailer(BRef bref, PstIo slice) {
         this.cb = slice.readW();
         this.wSig = slice.readW();
         this.dwCRC = slice.readDw();
@@ -80,19 +89,22 @@ public class BlockTrailer {
         if(bid.getBid() < 0) {
             throw new IllegalStateException("invalid bid:" + bid);
         }
+        if(!bid.equals(bref.getBid())) {
+            throw new IllegalStateException();
+        }
+    }
+    
+    /**
+     * Check the signature of this trailer, and that blockCrc, 
+     * the crc of the block's data, matches dwCRC 
+     */
+    public void verify(BRef bref, int blockCrc) {
         if(wSig != (0x00FFFF & BlockSignature.compute(bref.getIb(), bid.getBid()))) {
             throw new IllegalStateException("invalid wsig:" + this);
         }
         if(dwCRC != blockCrc) {
             throw new IllegalStateException("invalid crc:" + blockCrc);
         }
-        
-        if(!bid.equals(bref.getBid())) {
-            throw new IllegalStateException();
-        }
-        
-        
-        
     }
 
     @Override
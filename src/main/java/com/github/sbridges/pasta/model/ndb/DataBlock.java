@@ -33,8 +33,6 @@ import com.github.sbridges.pasta.io.InMemoryPstIo;
 import com.github.sbridges.pasta.io.PstIo;
 import com.github.sbridges.pasta.model.BCryptMethod;
 import com.github.sbridges.pasta.model.BRef;
-import com.github.sbridges.pasta.util.CRC;
-import com.github.sbridges.pasta.util.CryptPermute;
 
 /**
  * 2.2.2.8.3.1 Data Blocks
@@ -48,14 +46,24 @@ public class DataBlock {
     private final BCryptMethod bCryptMethod;
     private final BlockTrailer blockTrailer;
     private final PstIo data;
+    //decrypted on first use, null if not yet decrypted
+    private volatile PstIo decrypted;
     
     public DataBlock(BCryptMethod bCryptMethod, BRef bref, int cb, PstIo slice) {
+        this(bCryptMethod, bref, cb, slice, true);
+    }
+    
+    /**
+     * @param verify - if false, the crc of the data and the trailer's signature are not checked
+     */
+    public DataBlock(BCryptMethod bCryptMethod, BRef bref, int cb, PstIo slice, boolean verify) {
         this.bCryptMethod = bCryptMethod;
         data = slice.slice(0, cb);
-        int dataCrc = CRC.computeCRC(data.read(cb));
         
-        slice.seek(slice.size() - 16);
-        blockTrailer = new BlockTrailer(bref, dataCrc, slice.sliceAndSkip(16));
+        blockTrailer = new BlockTrailer(bref, slice.slice(slice.size() - 16, 16));
+        if(verify) {
+            blockTrailer.verify(bref, data.computeCRC(0, cb));
+        }
         
         if(blockTrailer.getCb() != cb) {
             throw new IllegalStateException("trailer size does not match");
@@ -66,41 +74,51 @@ public class DataBlock {
         return blockTrailer;
     }
 
+    /**
+     * Get this block's data.<P>
+     * 
+     * Each call returns a new PstIo with its own position, 
+     * so a DataBlock can be shared between threads.
+     */
     public PstIo getData() {
-        return data;
+        return data.slice(0, (int) data.size());
     }
     
     /**
      * Get a decrypted version of this nodes data.<P>
+     * 
+     * The data is decrypted once, and kept with the block, so a 
+     * block held in the NDBCache is not decrypted on each read.  Each 
+     * call returns a new PstIo with its own position.
      */
     public PstIo getDataDecrypted() {
-        data.seek(0);
         if(bCryptMethod == BCryptMethod.NDB_CRYPT_NONE) {
-            return data;
+            return getData();
         }
-        else if(bCryptMethod == BCryptMethod.NDB_CRYPT_PERMUTE) {
+        //two threads may both decrypt, the results are the same
+        PstIo answer = decrypted;
+        if(answer == null) {
             if(data.size() > Integer.MAX_VALUE) {
                 throw new IllegalStateException();
             }
-            byte[] encrypted = data.read((int) data.size());
-            byte[] decrypted = CryptPermute.decrypt(encrypted);
-            return new InMemoryPstIo(data.getRoot(), decrypted);
-        } else {
-            throw new IllegalStateException("unsupported crypt method:" + bCryptMethod);
+            //read copies the bytes, so decrypt the copy in place
+            byte[] bytes = data.read(0, (int) data.size());
+            bCryptMethod.decrypt(bytes, 0, bytes.length, blockTrailer.getBid());
+            answer = new InMemoryPstIo(data.getRoot(), bytes);
+            decrypted = answer;
         }
-        
+        return answer.slice(0, (int) answer.size());
     }
     
     public boolean isSLBLock() {
         if(!blockTrailer.getBid().isInternal()) {
             return false;
         }
-        data.seek(0);
         return 
                 //bType
-                data.readByte() == 2 && 
+                data.readByte(0) == 2 && 
                 //cLevel
-                data.readByte() == 0;
+                data.readByte(1) == 0;
                 
     }
     
@@ -108,12 +126,11 @@ public class DataBlock {
         if(!blockTrailer.getBid().isInternal()) {
             return false;
         }
-        data.seek(0);
         return 
                 //bType
-                data.readByte() == 2 && 
+                data.readByte(0) == 2 && 
                 //cLevel
-                data.readByte() == 1;
+                data.readByte(1) == 1;
                 
     }
     
@@ -121,12 +138,11 @@ public class DataBlock {
         if(!blockTrailer.getBid().isInternal()) {
             return false;
         }
-        data.seek(0);
         return 
                 //bType
-                data.readByte() == 1 && 
+                data.readByte(0) == 1 && 
                 //cLevel
-                data.readByte() == 1;
+                data.readByte(1) == 1;
                 
     }
     
@@ -134,12 +150,11 @@ public class DataBlock {
         if(!blockTrailer.getBid().isInternal()) {
             return false;
         }
-        data.seek(0);
         return 
                 //bType
-                data.readByte() == 1 && 
+                data.readByte(0) == 1 && 
                 //cLevel
-                data.readByte() == 2;
+                data.readByte(1) == 2;
                 
     }
 
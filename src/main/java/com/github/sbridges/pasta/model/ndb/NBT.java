@@ -29,12 +29,18 @@
 
 package com.github.sbridges.pasta.model.ndb;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.github.sbridges.pasta.io.PstIo;
 import com.github.sbridges.pasta.model.BRef;
-import com.github.sbridges.pasta.model.Page;
+import com.github.sbridges.pasta.model.Verifier;
 
 /**
  *  Node BTree (NBT)
@@ -42,11 +48,24 @@ import com.github.sbridges.pasta.model.Page;
 public class NBT {
     private final BRef BREFNBT;
     private final PstIo io;
+    private final NDBCache cache;
+    private final Verifier verifier;
+    private volatile NBTIndex index;
     
     
     public NBT(BRef bREFBBT, PstIo io) {
+        this(bREFBBT, io, new NDBCache(0));
+    }
+    
+    public NBT(BRef bREFBBT, PstIo io, NDBCache cache) {
+        this(bREFBBT, io, cache, Verifier.STRICT);
+    }
+    
+    public NBT(BRef bREFBBT, PstIo io, NDBCache cache, Verifier verifier) {
         BREFNBT = bREFBBT;
         this.io = io;
+        this.cache = cache;
+        this.verifier = verifier;
     }
 
     public BRef getBREFNBT() {
@@ -56,6 +75,14 @@ public class NBT {
     public PstIo getIo() {
         return io;
     }
+    
+    public NDBCache getCache() {
+        return cache;
+    }
+    
+    public Verifier getVerifier() {
+        return verifier;
+    }
 
 
     @Override
@@ -64,39 +91,131 @@ public class NBT {
     }
     
     private BTPage getRoot() {
-        return new BTPage(new Page(BREFNBT, io));
+        return cache.getBTPage(BREFNBT, io, verifier);
     }
 
     public Optional<NBTEntry> load(NID nid) {
+        NBTIndex index = this.index;
+        if(index != null) {
+            return index.find(nid);
+        }
         return find(nid, getRoot());
     }
+    
+    /**
+     * Load the entries for several nids at once.<P>
+     * 
+     * The nids are sorted and found with one descent of the tree, 
+     * which reads each page at most once, rather than a descent 
+     * from the root for each nid.
+     * 
+     * @return the entry for each nid, in the same order as nids
+     */
+    public List<Optional<NBTEntry>> loadAll(NID... nids) {
+        List<Optional<NBTEntry>> answer = new ArrayList<>(nids.length);
+        NBTIndex index = this.index;
+        if(index != null) {
+            for(NID nid : nids) {
+                answer.add(index.find(nid));
+            }
+            return answer;
+        }
+        
+        long[] keys = new long[nids.length];
+        for(int i = 0; i < nids.length; i++) {
+            keys[i] = nids[i].getNid();
+        }
+        long[] sorted = BTreeUtil.sortedUnique(keys);
+        NBTEntry[] found = new NBTEntry[sorted.length];
+        BTreeUtil.findAll(sorted, getRoot(), io, cache, verifier, 
+                (keyIndex, leaf, entryIndex) -> found[keyIndex] = leaf.getNBTEntry(entryIndex));
+        for(long key : keys) {
+            answer.add(Optional.ofNullable(found[Arrays.binarySearch(sorted, key)]));
+        }
+        return answer;
+    }
+    
+    /**
+     * Read every leaf of this NBT into an in memory index, 
+     * after which load does no io.
+     */
+    public NBTIndex buildIndex() {
+        NBTIndex answer = NBTIndex.build(this);
+        index = answer;
+        return answer;
+    }
+    
+    public Optional<NBTIndex> getIndex() {
+        return Optional.ofNullable(index);
+    }
 
 
     private Optional<NBTEntry> find(NID nid, BTPage page) {
-        Optional<BTPage> leaf = BTreeUtil.findLeaf(nid.getNid(), page, io);
+        Optional<BTPage> leaf = BTreeUtil.findLeaf(nid.getNid(), page, io, cache, verifier);
         if(!leaf.isPresent()) {
             return Optional.empty();
         }
         
         
         if(leaf.get().isLeaf()) {
-            for(NBTEntry e : leaf.get().getNBTEntries()) {
-                if(e.getNid().equals(nid)) {
-                    return Optional.of(e);
-                }
+            int index = leaf.get().find(nid.getNid());
+            if(index < 0) {
+                return Optional.empty();
             }
-            return Optional.empty();
+            return Optional.of(leaf.get().getNBTEntry(index));
         } else {
             throw new IllegalStateException("not leaf:" + leaf.get());
         }
     }
     
+    /**
+     * Stream every entry of this NBT in nid order.<P>
+     * 
+     * Pages are read as the stream reaches them, and the stream 
+     * splits into whole subtrees, so it may be used in parallel.
+     */
+    public Stream<NBTEntry> entries() {
+        return StreamSupport.stream(
+                new BTreeSpliterator<>(getRoot(), io, cache, verifier, BTPage::getNBTEntry), 
+                false);
+    }
+    
+    /**
+     * Stream the entries of this NBT with from <= nid < to, in nid order.<P>
+     * 
+     * Only the pages whose keys overlap the range are read.
+     */
+    public Stream<NBTEntry> entries(NID from, NID to) {
+        if(to.getNid() <= from.getNid()) {
+            return Stream.empty();
+        }
+        return entries(from.getNid(), to.getNid() - 1, null);
+    }
+    
+    /**
+     * Stream the entries of this NBT whose nid is of the given type, in nid order.<P>
+     * 
+     * The type is in the low bits of a nid, so nodes of all types are 
+     * interleaved and every leaf is read, but only the entries 
+     * of the given type are decoded. 
+     */
+    public Stream<NBTEntry> entries(NidType type) {
+        int code = type.getCode();
+        return entries(Long.MIN_VALUE, Long.MAX_VALUE, nid -> (nid & 0x1F) == code);
+    }
+    
+    private Stream<NBTEntry> entries(long first, long last, LongPredicate keyFilter) {
+        return StreamSupport.stream(
+                new BTreeSpliterator<>(getRoot(), io, cache, verifier, BTPage::getNBTEntry, first, last, keyFilter), 
+                false);
+    }
+    
     public void walkDepthFirst(Consumer<BTPage> consumer) {
-        BTreeUtil.walkDepthFirst(getRoot(), io, consumer);
+        BTreeUtil.walkDepthFirst(getRoot(), io, verifier, consumer);
     }
     
     public String debugString() {
-        return BTreeUtil.debugString(getRoot(), io);
+        return BTreeUtil.debugString(getRoot(), io, verifier);
     }
     
 }
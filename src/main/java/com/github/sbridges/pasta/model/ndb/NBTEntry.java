@@ -67,6 +67,13 @@ public class NBTEntry {
     //This field is not interpreted by any structure defined at the NDB Layer.
     private final Optional<NID> nidParent;
     
+    public NBTEntry(NID nid, BID bidData, Optional<BID> bidSub, Optional<NID> nidParent) {
+        this.nid = nid;
+        this.bidData = bidData;
+        this.bidSub = bidSub.orElse(null);
+        this.nidParent = nidParent;
+    }
+    
     public NBTEntry(PstIo slice) {
         
         nid = new NID(slice.readLong());
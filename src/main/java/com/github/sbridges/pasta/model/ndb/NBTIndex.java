@@ -0,0 +1,196 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ndb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import com.github.sbridges.pasta.model.BID;
+
+/**
+ * An in memory index of every NBTEntry in an NBT.<P>
+ * 
+ * The entries are held in parallel arrays sorted by nid, so 
+ * a lookup is a binary search with no io.  The index also 
+ * holds the nidParent links in reverse, as a compressed
+ * adjacency list, so the children of a folder can be 
+ * found without reading its hierarchy or contents table.  
+ * Children whose parent is not in the NBT are not indexed 
+ * as children.<P>
+ * 
+ * Like the BBTIndex it is never changed once built, so the NBT
+ * shares it between threads.
+ */
+public class NBTIndex {
+
+    private final long[] nids;
+    private final long[] bidDatas;
+    //0 if there is no bidSub
+    private final long[] bidSubs;
+    //0 if there is no nidParent
+    private final int[] nidParents;
+    
+    //the children of the node at index i are the 
+    //indexes children[childOffsets[i]] to children[childOffsets[i+1] - 1]
+    //in nid order
+    private final int[] childOffsets;
+    private final int[] children;
+    
+    private NBTIndex(long[] nids, long[] bidDatas, long[] bidSubs, int[] nidParents) {
+        this.nids = nids;
+        this.bidDatas = bidDatas;
+        this.bidSubs = bidSubs;
+        this.nidParents = nidParents;
+        
+        int[] parents = new int[nids.length];
+        childOffsets = new int[nids.length + 1];
+        for(int i = 0; i < nids.length; i++) {
+            //the root folder is its own parent, but not its own child
+            boolean hasParent = nidParents[i] != 0 && (nidParents[i] & 0xFFFF_FFFFL) != nids[i];
+            parents[i] = hasParent ? indexOf(nidParents[i] & 0xFFFF_FFFFL) : -1;
+            if(parents[i] >= 0) {
+                childOffsets[parents[i] + 1]++;
+            }
+        }
+        for(int i = 0; i < nids.length; i++) {
+            childOffsets[i + 1] += childOffsets[i];
+        }
+        children = new int[childOffsets[nids.length]];
+        int[] next = Arrays.copyOf(childOffsets, nids.length);
+        //nids are sorted, so each parent's children are as well
+        for(int i = 0; i < nids.length; i++) {
+            if(parents[i] >= 0) {
+                children[next[parents[i]]++] = i;
+            }
+        }
+    }
+    
+    /**
+     * Build an index by reading every leaf page of nbt 
+     */
+    public static NBTIndex build(NBT nbt) {
+        LongStream.Builder nids = LongStream.builder();
+        LongStream.Builder bidDatas = LongStream.builder();
+        LongStream.Builder bidSubs = LongStream.builder();
+        IntStream.Builder nidParents = IntStream.builder();
+        nbt.entries().forEachOrdered(entry -> {
+            nids.add(entry.getNid().getNid());
+            bidDatas.add(entry.getBidData().getBid());
+            bidSubs.add(entry.getBidSub().map(BID::getBid).orElse(0L));
+            //nidParent is 4 bytes on disk
+            nidParents.add((int) entry.getNidParent().map(NID::getNid).orElse(0L).longValue());
+        });
+        
+        long[] sorted = nids.build().toArray();
+        //a depth first walk visits the leaves in order
+        for(int i = 1; i < sorted.length; i++) {
+            if(sorted[i - 1] >= sorted[i]) {
+                throw new IllegalStateException("NBT not sorted, previous:" + sorted[i - 1] + " nid:" + sorted[i]);
+            }
+        }
+        return new NBTIndex(sorted, bidDatas.build().toArray(), bidSubs.build().toArray(), nidParents.build().toArray());
+    }
+    
+    public Optional<NBTEntry> find(NID nid) {
+        int index = indexOf(nid.getNid());
+        if(index < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new NBTEntry(
+                new NID(nids[index]),
+                new BID(bidDatas[index]),
+                bidSubs[index] == 0 ? Optional.empty() : Optional.of(new BID(bidSubs[index])),
+                nidParents[index] == 0 ? Optional.empty() : Optional.of(new NID(nidParents[index] & 0xFFFF_FFFFL))
+                ));
+    }
+    
+    /**
+     * Get the nodes whose nidParent is parent, in nid order.
+     * A node is never its own child, though the root folder 
+     * is its own parent.
+     */
+    public List<NID> getChildren(NID parent) {
+        return getChildren(parent, null);
+    }
+    
+    /**
+     * Get the nodes of type whose nidParent is parent, in nid order.<P>
+     * 
+     * For a folder, NID_TYPE_NORMAL_FOLDER gives its sub folders, 
+     * and NID_TYPE_NORMAL_MESSAGE its messages.
+     */
+    public List<NID> getChildren(NID parent, NidType type) {
+        int index = indexOf(parent.getNid());
+        if(index < 0) {
+            return new ArrayList<>();
+        }
+        List<NID> answer = new ArrayList<>(childOffsets[index + 1] - childOffsets[index]);
+        for(int i = childOffsets[index]; i < childOffsets[index + 1]; i++) {
+            NID child = new NID(nids[children[i]]);
+            if(type == null || child.getType() == type) {
+                answer.add(child);
+            }
+        }
+        return answer;
+    }
+    
+    public int getChildCount(NID parent) {
+        int index = indexOf(parent.getNid());
+        if(index < 0) {
+            return 0;
+        }
+        return childOffsets[index + 1] - childOffsets[index];
+    }
+    
+    public int size() {
+        return nids.length;
+    }
+    
+    /**
+     * The memory used by the index arrays
+     */
+    public long getSizeBytes() {
+        return nids.length * (8L + 8 + 8 + 4) 
+                + childOffsets.length * 4L 
+                + children.length * 4L;
+    }
+    
+    private int indexOf(long nid) {
+        return Arrays.binarySearch(nids, nid);
+    }
+
+    @Override
+    public String toString() {
+        return "NBTIndex [size=" + size() + ", sizeBytes=" + getSizeBytes() + "]";
+    }
+}
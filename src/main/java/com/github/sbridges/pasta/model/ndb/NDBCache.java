@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+
+package com.github.sbridges.pasta.model.ndb;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.github.sbridges.pasta.io.PstIo;
+import com.github.sbridges.pasta.model.BRef;
+import com.github.sbridges.pasta.model.Page;
+import com.github.sbridges.pasta.model.Verifier;
+
+/**
+ * A cache of decoded BTPages and DataBlocks, keyed by their 
+ * offset in the file.<P>
+ * 
+ * The cache is bounded by the total size in bytes of the pages
+ * and blocks it holds, and evicts the least recently used entry 
+ * first.  A cache with a max size of 0 caches nothing, but still 
+ * counts misses.<P>
+ * 
+ * This is thread safe.  Two threads which miss on the same offset
+ * may both decode it, the last one wins.
+ */
+public class NDBCache {
+
+    private final long maxSizeBytes;
+    
+    //access ordered, so the eldest entry is the least recently used
+    private final LinkedHashMap<Long, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    
+    public NDBCache(long maxSizeBytes) {
+        if(maxSizeBytes < 0) {
+            throw new IllegalArgumentException("invalid maxSizeBytes:" + maxSizeBytes);
+        }
+        this.maxSizeBytes = maxSizeBytes;
+    }
+    
+    /**
+     * Get the BTPage ref points to, reading it from io if it is not cached 
+     */
+    public BTPage getBTPage(BRef ref, PstIo io, Verifier verifier) {
+        return get(ref.getIb(), Page.SIZE, () -> BTreeUtil.readPage(ref, io, verifier));
+    }
+
+    /**
+     * Get the value at ib, using loader to create it if it is not cached.<P>
+     * 
+     * ib is a file offset, so all values cached for an ib must be 
+     * of the same type.
+     * 
+     * @param sizeBytes - the size of the value in the file
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(long ib, int sizeBytes, Supplier<T> loader) {
+        synchronized(this) {
+            CacheEntry entry = entries.get(ib);
+            if(entry != null) {
+                hitCount++;
+                return (T) entry.value;
+            }
+            missCount++;
+        }
+        
+        //load outside the lock, this may do io
+        T answer = loader.get();
+        if(sizeBytes <= maxSizeBytes) {
+            put(ib, new CacheEntry(answer, sizeBytes));
+        }
+        return answer;
+    }
+
+    private synchronized void put(long ib, CacheEntry entry) {
+        CacheEntry old = entries.put(ib, entry);
+        if(old != null) {
+            sizeBytes -= old.sizeBytes;
+        }
+        sizeBytes += entry.sizeBytes;
+        
+        Iterator<Map.Entry<Long, CacheEntry>> eldest = entries.entrySet().iterator();
+        while(sizeBytes > maxSizeBytes) {
+            CacheEntry evicted = eldest.next().getValue();
+            eldest.remove();
+            sizeBytes -= evicted.sizeBytes;
+            evictionCount++;
+        }
+    }
+    
+    public synchronized void clear() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+    
+    public long getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+    
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+    
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+    
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "NDBCache [maxSizeBytes=" + maxSizeBytes + ", sizeBytes=" + sizeBytes 
+                + ", entryCount=" + entries.size() + ", hitCount=" + hitCount 
+                + ", missCount=" + missCount + ", evictionCount=" + evictionCount + "]";
+    }
+    
+    private static class CacheEntry {
+        private final Object value;
+        private final int sizeBytes;
+        
+        CacheEntry(Object value, int sizeBytes) {
+            this.value = value;
+            this.sizeBytes = sizeBytes;
+        }
+    }
+}
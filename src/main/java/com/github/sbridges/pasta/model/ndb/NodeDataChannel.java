@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ndb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+import com.github.sbridges.pasta.io.PstIo;
+
+/**
+ * A read only channel over a NodeDataStream, which holds
+ * at most one decrypted block in memory.<P>
+ * 
+ * This is not thread safe.
+ */
+class NodeDataChannel implements SeekableByteChannel {
+
+    private final NodeDataStream stream;
+    private long position;
+    private boolean open = true;
+    
+    //the last block read, and its index
+    private int blockIndex = -1;
+    private PstIo block;
+    
+    NodeDataChannel(NodeDataStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        block = null;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        assertOpen();
+        if(position >= stream.size()) {
+            return -1;
+        }
+        int read = 0;
+        while(dst.hasRemaining() && position < stream.size()) {
+            int index = stream.getBlockIndex(position);
+            if(index != blockIndex) {
+                //release the old block before loading the next
+                block = null;
+                block = stream.getBlockUncached(index).getDataDecrypted();
+                blockIndex = index;
+            }
+            int inBlock = (int) (position - stream.getBlockOffset(index));
+            int count = (int) Math.min(dst.remaining(), block.size() - inBlock);
+            dst.put(block.read(inBlock, count));
+            position += count;
+            read += count;
+        }
+        return read;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        assertOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        assertOpen();
+        if(newPosition < 0) {
+            throw new IllegalArgumentException("invalid position:" + newPosition);
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        assertOpen();
+        return stream.size();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+    
+    private void assertOpen() throws ClosedChannelException {
+        if(!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NodeDataChannel [stream=" + stream + ", position=" + position + "]";
+    }
+}
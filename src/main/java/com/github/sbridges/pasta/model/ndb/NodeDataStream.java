@@ -0,0 +1,263 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ndb;
+
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import com.github.sbridges.pasta.io.InMemoryPstIo;
+import com.github.sbridges.pasta.io.PstIo;
+import com.github.sbridges.pasta.model.BID;
+
+/**
+ * The data stream of a node.<P>
+ * 
+ * A node's data is a single data block, or an XBLOCK or XXBLOCK 
+ * tree of data blocks.  The tree is resolved once, when this is
+ * created, into the BBTEntry of each data block and the offset 
+ * of each block in the stream, so finding a block is O(1) and 
+ * finding the block holding a position is a binary search.  
+ * The data blocks themselves are loaded when read.<P>
+ * 
+ * This is immutable, and so may be shared between threads.
+ */
+public class NodeDataStream {
+
+    private final BBT bbt;
+    private final BID bid;
+    private final BBTEntry[] blocks;
+    //offsets[i] is the position of block i in the stream,
+    //offsets[blocks.length] is the size of the stream
+    private final long[] offsets;
+    
+    public NodeDataStream(BBT bbt, BID bid) {
+        this.bbt = bbt;
+        this.bid = bid;
+        
+        BBTEntry root = find(bid);
+        List<BBTEntry> entries = new ArrayList<>();
+        long lcbTotal = -1;
+        if(!bid.isInternal()) {
+            entries.add(root);
+        } else {
+            DataBlock rootBlock = bbt.load(root);
+            //lcbTotal (4 bytes): Total count of bytes of all the external data stored in the data blocks referenced by XBLOCK.
+            lcbTotal = 0xFFFF_FFFFL & rootBlock.getData().readDw(4);
+            if(rootBlock.isXBLock()) {
+                addXBlock(rootBlock, entries);
+            } else if(rootBlock.isXXBLock()) {
+                for(BID xBid : new XBlock(rootBlock).getXBlockBids()) {
+                    if(!xBid.isInternal()) {
+                        throw new IllegalStateException("not internal?:" + xBid);
+                    }
+                    DataBlock xBlock = bbt.load(find(xBid));
+                    if(!xBlock.isXBLock()) {
+                        throw new IllegalStateException("not an XBLOCK:" + xBlock);
+                    }
+                    addXBlock(xBlock, entries);
+                }
+            } else {
+                throw new IllegalStateException("not a data tree:" + rootBlock);
+            }
+        }
+        
+        blocks = entries.toArray(new BBTEntry[entries.size()]);
+        offsets = new long[blocks.length + 1];
+        for(int i = 0; i < blocks.length; i++) {
+            //all blocks but the last must be of maximum size
+            if(i + 1 < blocks.length && blocks[i].getCb() != BTPage.BLOCK_MAX_SIZE_BYTES) {
+                throw new IllegalStateException("block:" + i + " not full:" + blocks[i] + " this:" + this);
+            }
+            offsets[i + 1] = offsets[i] + blocks[i].getCb();
+        }
+        
+        if(bid.isInternal()) {
+            if(lcbTotal != size()) {
+                throw new IllegalStateException("lcbTotal:" + lcbTotal + " does not match size:" + size() + " this:" + this);
+            }
+        }
+    }
+    
+    private void addXBlock(DataBlock xBlock, List<BBTEntry> entries) {
+        List<BID> dataBids = new ArrayList<>();
+        for(BID dataBid : new XBlock(xBlock).getXBlockBids()) {
+            if(dataBid.isInternal()) {
+                throw new IllegalStateException("internal?:" + dataBid);
+            }
+            dataBids.add(dataBid);
+        }
+        //the bids of an XBLOCK are usually close together, so find them in one pass
+        List<Optional<BBTEntry>> found = bbt.findAll(dataBids.toArray(new BID[dataBids.size()]));
+        for(int i = 0; i < found.size(); i++) {
+            BID dataBid = dataBids.get(i);
+            entries.add(found.get(i).orElseThrow(() -> new IllegalStateException("not found:" + dataBid)));
+        }
+    }
+    
+    private BBTEntry find(BID bid) {
+        return bbt.find(bid).orElseThrow(() -> new IllegalStateException("not found:" + bid));
+    }
+    
+    public BID getBid() {
+        return bid;
+    }
+    
+    /**
+     * The size of the stream in bytes 
+     */
+    public long size() {
+        return offsets[blocks.length];
+    }
+    
+    public int getBlockCount() {
+        return blocks.length;
+    }
+    
+    /**
+     * Get the index'th data block of the stream
+     */
+    public DataBlock getBlock(int index) {
+        if(index < 0 || index >= blocks.length) {
+            throw new IndexOutOfBoundsException("index:" + index + " blocks:" + blocks.length + " bid:" + bid);
+        }
+        return bbt.load(blocks[index]);
+    }
+    
+    /**
+     * Get the BBT entry of the index'th data block of the stream
+     */
+    public BBTEntry getBlockEntry(int index) {
+        if(index < 0 || index >= blocks.length) {
+            throw new IndexOutOfBoundsException("index:" + index + " blocks:" + blocks.length + " bid:" + bid);
+        }
+        return blocks[index];
+    }
+    
+    /**
+     * Like getBlock, but does not go through the BBT's cache 
+     */
+    DataBlock getBlockUncached(int index) {
+        if(index < 0 || index >= blocks.length) {
+            throw new IndexOutOfBoundsException("index:" + index + " blocks:" + blocks.length + " bid:" + bid);
+        }
+        return bbt.loadUncached(blocks[index]);
+    }
+    
+    /**
+     * The position in the stream of the first byte of the index'th block 
+     */
+    public long getBlockOffset(int index) {
+        if(index < 0 || index >= blocks.length) {
+            throw new IndexOutOfBoundsException("index:" + index + " blocks:" + blocks.length + " bid:" + bid);
+        }
+        return offsets[index];
+    }
+    
+    /**
+     * The index of the block holding position 
+     */
+    public int getBlockIndex(long position) {
+        if(position < 0 || position >= size()) {
+            throw new IndexOutOfBoundsException("position:" + position + " size:" + size() + " bid:" + bid);
+        }
+        //blocks are never empty, so offsets are strictly increasing
+        int index = Arrays.binarySearch(offsets, position);
+        if(index >= 0) {
+            return index;
+        }
+        return -index - 2;
+    }
+    
+    /**
+     * Read length decrypted bytes starting at position, which
+     * may span several blocks.
+     */
+    public byte[] read(long position, int length) {
+        if(position < 0 || length < 0 || position + length > size()) {
+            throw new IndexOutOfBoundsException("position:" + position + " length:" + length + " size:" + size() + " bid:" + bid);
+        }
+        byte[] answer = new byte[length];
+        int read = 0;
+        while(read < length) {
+            int index = getBlockIndex(position + read);
+            int inBlock = (int) (position + read - offsets[index]);
+            int count = (int) Math.min(length - read, offsets[index + 1] - offsets[index] - inBlock);
+            byte[] bytes = getBlock(index).getDataDecrypted().read(inBlock, count);
+            System.arraycopy(bytes, 0, answer, read, count);
+            read += count;
+        }
+        return answer;
+    }
+    
+    /**
+     * Get the whole decrypted stream.<P>
+     * 
+     * For a single block this is the block's data, otherwise the 
+     * blocks are read into memory.
+     */
+    public PstIo getData() {
+        if(blocks.length == 1) {
+            return getBlock(0).getDataDecrypted();
+        }
+        if(size() > Integer.MAX_VALUE) {
+            throw new IllegalStateException("too large:" + size() + " bid:" + bid);
+        }
+        return new InMemoryPstIo(bbt.getIo(), read(0, (int) size()));
+    }
+
+    /**
+     * Open a channel over this stream.<P>
+     * 
+     * The channel reads, decrypts and checks the crc of one 
+     * block at a time, and does not use the BBT's cache, so 
+     * any size stream can be read in constant memory.  Each channel 
+     * has its own position, a channel should only be used by one 
+     * thread.
+     */
+    public SeekableByteChannel newChannel() {
+        return new NodeDataChannel(this);
+    }
+    
+    /**
+     * Open an InputStream over this stream, see newChannel()
+     */
+    public InputStream newInputStream() {
+        return Channels.newInputStream(newChannel());
+    }
+
+    @Override
+    public String toString() {
+        return "NodeDataStream [bid=" + bid + ", blocks=" + blocks.length + ", size=" + offsets[blocks.length] + "]";
+    }
+}
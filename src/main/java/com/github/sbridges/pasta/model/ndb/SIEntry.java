@@ -39,6 +39,10 @@ import com.github.sbridges.pasta.model.BID;
  *
  */
 public class SIEntry {
+    
+    //the size of an SIENTRY in a Unicode PST
+    public static final int SIZE = 16;
+    
     //nid (Unicode: 8 bytes; ANSI: 4 bytes): The key NID value to 
     //the next-level child block. This NID is only unique 
     //within the parent node. The NID is extended to 8 bytes in 
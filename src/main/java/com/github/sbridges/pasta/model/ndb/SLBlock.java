@@ -48,15 +48,24 @@ public class SLBlock {
        
     public Iterable<SLEntry> getSLEntries() {
         PstIo data = block.getData();
-        data.seek(0);
+        int cEnt = readCEnt(data);
+        
+        //rgbid (variable): Array of BIDs that reference data blocks. The size is equal to the number of entries indicated by cEnt multiplied by the size of a BID (8 bytes for Unicode PST files, 4 bytes for ANSI PST files).
+        return () -> CollectionUtils.transform(
+                        data.chunk(8, cEnt, 24),
+                        p -> new SLEntry(p)
+                        );
+    }
+    
+    private int readCEnt(PstIo data) {
         //btype (1 byte): Block type; MUST be set to 0x02.
-        byte bType = data.readByte();
+        byte bType = data.readByte(0);
         //cLevel (1 byte): MUST be set to 0x00.
-        byte cLevel = data.readByte();
+        byte cLevel = data.readByte(1);
         //cEnt (2 bytes): The number of SLENTRYs in the SLBLOCK. This value and the number of elements in the rgentries array MUST be non-zero. When this value transitions to zero, it is required for the block to be deleted.
-        int cEnt = data.readW();
+        int cEnt = data.readW(2);
         //dwPadding (4 bytes): Padding; MUST be set to zero.
-        long dwPadding = data.readDw();
+        long dwPadding = data.readDw(4);
         if(bType != 2) {
             throw new IllegalStateException("bType must be 2, not:" + bType + " cLevel:" + cLevel + " cent:" + cEnt + " dataBlock:" + this);
         }
@@ -67,10 +76,6 @@ public class SLBlock {
             throw new IllegalStateException("dwPadding must be 0, not:" + dwPadding + " dataBlock:" + this);
         }
         
-        //rgbid (variable): Array of BIDs that reference data blocks. The size is equal to the number of entries indicated by cEnt multiplied by the size of a BID (8 bytes for Unicode PST files, 4 bytes for ANSI PST files).
-        return () -> CollectionUtils.transform(
-                        data.chunk(8, cEnt, 24),
-                        p -> new SLEntry(p)
-                        );
+        return cEnt;
     }
 }
@@ -55,6 +55,12 @@ public class SLEntry {
     private BID bidSub;
     
     
+    public SLEntry(NID nid, BID bidData, Optional<BID> bidSub) {
+        this.nid = nid;
+        this.bidData = bidData;
+        this.bidSub = bidSub.orElse(null);
+    }
+    
     public SLEntry(PstIo slice) {
         nid = new NID(slice.readLong());
         bidData = new BID(slice.readLong());
@@ -29,9 +29,10 @@
 
 package com.github.sbridges.pasta.model.ndb;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.Set;
+import java.util.function.Consumer;
 
 import com.github.sbridges.pasta.model.BID;
 
@@ -41,73 +42,70 @@ import com.github.sbridges.pasta.model.BID;
  * the elements that make up a subnode. 
  * The subnode BTree is a BTree that is made up of SIBLOCK 
  * and SLBLOCK structures, which contain SIENTRY and SLENTRY structures,
- *  respectively. These structures are defined in the following sections.
+ *  respectively. These structures are defined in the following sections.<P>
  *
+ * The first lookup reads every block of the BTree into a SubnodeIndex,
+ * which later lookups use, so a node should keep its SubnodeBTree 
+ * rather than create one per lookup.  This is not thread safe.
  */
 public class SubnodeBTree {
 
     private final BBT bbt;
     private final BID bidSub;
+    private SubnodeIndex index;
     
     public SubnodeBTree(BBT bbt, BID bidSub) {
         this.bbt = bbt;
         this.bidSub = bidSub;
     }
 
-    public Iterable<SLEntry> getEntries() {
-        Set<SLEntry> answer = new HashSet<>();
-        addEntries(bidSub, answer);
+    /**
+     * Get the entries in nid order 
+     */
+    public List<SLEntry> getEntries() {
+        if(index != null) {
+            return index.getEntries();
+        }
+        List<SLEntry> answer = new ArrayList<>();
+        forEachEntry(answer::add);
         return answer;
-        
     }
     
-    private void addEntries(BID bid, Set<SLEntry> answer) {
+    /**
+     * Read the blocks of this BTree, passing the entries to consumer in nid order 
+     */
+    void forEachEntry(Consumer<SLEntry> consumer) {
+        forEachEntry(bidSub, consumer);
+    }
+    
+    private void forEachEntry(BID bid, Consumer<SLEntry> consumer) {
         DataBlock db = load(bid);
         
         if(db.isSIBLock()) {
             for(SIEntry entry : new SIBlock(db).getSLEntries()) {
-                addEntries(entry.getBid(), answer);
+                forEachEntry(entry.getBid(), consumer);
             }
         } else if(db.isSLBLock()) {
             for(SLEntry entry : new SLBlock(db).getSLEntries()) {
-                answer.add(entry);
+                consumer.accept(entry);
             }
         } else {
             throw new IllegalStateException("invalid type:" + db);
         }
-        
-        
     }
 
     public Optional<SLEntry> load(NID nid) {
-        return find(bidSub, nid);
+        return getIndex().find(nid);
     }
-
-    private Optional<SLEntry> find(BID bid, NID nid) {
-        DataBlock db = load(bid);
-        if(db.isSIBLock()) {
-            SIEntry last = null;
-            for(SIEntry entry : new SIBlock(db).getSLEntries()) {
-                if(entry.getNid().getNid() > nid.getNid()) {
-                    break;
-                }
-                last = entry;
-            }
-            if(last == null) {
-                return Optional.empty();
-            } else {
-                return find(last.getBid(), nid);
-            }
-        } else if(db.isSLBLock()) {
-            for(SLEntry entry : new SLBlock(db).getSLEntries()) {
-                if(entry.getNid().equals(nid)) {
-                    return Optional.of(entry);
-                }
-            }
-            return Optional.empty();
-        } else {
-            throw new IllegalStateException("invalid type:" + db);
+    
+    /**
+     * Get the index of this BTree, building it on first use 
+     */
+    public SubnodeIndex getIndex() {
+        if(index == null) {
+            index = SubnodeIndex.build(this);
         }
+        return index;
     }
 
     private DataBlock load(BID bid) {
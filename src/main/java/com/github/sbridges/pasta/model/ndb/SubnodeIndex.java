@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ndb;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import com.github.sbridges.pasta.model.BID;
+
+/**
+ * An in memory index of the SLEntrys of a subnode BTree.<P>
+ * 
+ * The entries are held in parallel arrays sorted by nid, so 
+ * a lookup is a binary search with no io.  SubnodeBTree builds 
+ * one on its first lookup.
+ */
+public class SubnodeIndex {
+
+    private final long[] nids;
+    private final long[] bidDatas;
+    //0 if there is no bidSub
+    private final long[] bidSubs;
+    
+    private SubnodeIndex(long[] nids, long[] bidDatas, long[] bidSubs) {
+        this.nids = nids;
+        this.bidDatas = bidDatas;
+        this.bidSubs = bidSubs;
+    }
+    
+    /**
+     * Build an index by reading every SLBLOCK of the subnode BTree
+     */
+    public static SubnodeIndex build(SubnodeBTree subnodes) {
+        LongStream.Builder nids = LongStream.builder();
+        LongStream.Builder bidDatas = LongStream.builder();
+        LongStream.Builder bidSubs = LongStream.builder();
+        subnodes.forEachEntry(entry -> {
+            nids.add(entry.getNid().getNid());
+            bidDatas.add(entry.getBidData().getBid());
+            bidSubs.add(entry.getBidSub().map(BID::getBid).orElse(0L));
+        });
+        
+        long[] sorted = nids.build().toArray();
+        //the SIBLOCKs and SLBLOCKs are visited in order
+        for(int i = 1; i < sorted.length; i++) {
+            if(sorted[i - 1] >= sorted[i]) {
+                throw new IllegalStateException("subnode BTree not sorted, previous:" + sorted[i - 1] + " nid:" + sorted[i]);
+            }
+        }
+        return new SubnodeIndex(sorted, bidDatas.build().toArray(), bidSubs.build().toArray());
+    }
+    
+    public Optional<SLEntry> find(NID nid) {
+        int index = Arrays.binarySearch(nids, nid.getNid());
+        if(index < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(getEntry(index));
+    }
+    
+    /**
+     * Get the entries in nid order
+     */
+    public List<SLEntry> getEntries() {
+        return new AbstractList<SLEntry>() {
+
+            @Override
+            public SLEntry get(int index) {
+                return getEntry(index);
+            }
+
+            @Override
+            public int size() {
+                return nids.length;
+            }
+        };
+    }
+    
+    public int size() {
+        return nids.length;
+    }
+    
+    /**
+     * The memory used by the index arrays
+     */
+    public long getSizeBytes() {
+        return nids.length * (8L + 8 + 8);
+    }
+    
+    private SLEntry getEntry(int index) {
+        return new SLEntry(
+                new NID(nids[index]),
+                new BID(bidDatas[index]),
+                bidSubs[index] == 0 ? Optional.empty() : Optional.of(new BID(bidSubs[index])));
+    }
+
+    @Override
+    public String toString() {
+        return "SubnodeIndex [size=" + size() + ", sizeBytes=" + getSizeBytes() + "]";
+    }
+}
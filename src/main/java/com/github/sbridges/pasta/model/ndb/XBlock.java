@@ -55,15 +55,14 @@ public class XBlock {
 
     public Iterable<BID> getXBlockBids() {
         PstIo data = block.getData();
-        data.seek(0);
         //btype (1 byte): Block type; MUST be set to 0x01 to indicate an XBLOCK or XXBLOCK.
-        byte bType = data.readByte();
+        byte bType = data.readByte(0);
         //cLevel (1 byte): MUST be set to 0x01 to indicate an XBLOCK.
-        byte cLevel = data.readByte();
+        byte cLevel = data.readByte(1);
         //cEnt (2 bytes): The count of BID entries in the XBLOCK.
-        int cEnt = data.readW();
+        int cEnt = data.readW(2);
         //lcbTotal (4 bytes): Total count of bytes of all the external data stored in the data blocks referenced by XBLOCK.
-        long lcbTotal = data.readDw();
+        long lcbTotal = data.readDw(4);
         if(bType != 1) {
             throw new IllegalStateException("bType must be 1, not:" + bType + " cLevel:" + cLevel + " cent:" + cEnt + " dataBlock:" + this);
         }
@@ -38,7 +38,9 @@ public class XBlockUtil {
     /**
      * get the index'th data block from this tree.
      * 
-     * rootBid may point to a datablock, an xblock, or an xxblock
+     * rootBid may point to a datablock, an xblock, an xxblock, 
+     * an slblock or an siblock.  Callers which read several blocks
+     * of a data tree should use a NodeDataStream instead.
      */
     public static DataBlock getDataBlock(
             int index, 
@@ -47,59 +49,8 @@ public class XBlockUtil {
             ) {
         DataBlock dataBlock = bbt.load(rootBid);
         
-        if(!rootBid.isInternal()) {
-            if(index != 0) {
-                throw new IllegalStateException("not internal, but asking for non 0 block? index:" + index + " rootBid:" + rootBid);
-            }
-            return dataBlock;
-        }
-        
-        if(dataBlock.isXBLock()) {
-            Iterator<BID> bidIter = new XBlock(dataBlock).getXBlockBids().iterator();
-            for(int i =0; i < index; i++) {
-                bidIter.next();
-            }
-            BID bid = bidIter.next();
-            if(bid.isInternal()) {
-                throw new IllegalStateException("internal?");
-            }
-            DataBlock answer = bbt.load(bid);
-            //all blocks but the last must be of maximum size
-            if(bidIter.hasNext() && answer.getData().size() != 8192 - BlockTrailer.SIZE) {
-                throw new IllegalStateException();
-            }
-            return answer;
-        }
-        
-        if(dataBlock.isXXBLock()) {
-            int remaining = index;
-            Iterator<BID> xxBlockIter = new XBlock(dataBlock).getXBlockBids().iterator();
-            while(xxBlockIter.hasNext()) {
-                BID xBid = xxBlockIter.next();
-                if(!xBid.isInternal()) {
-                    throw new IllegalStateException("not internal?:" + xBid);
-                }
-                DataBlock xBlockDataBlock = bbt.load(xBid);
-                if(!xBlockDataBlock.isXBLock()) {
-                    throw new IllegalStateException();
-                }
-                XBlock xBlock = new XBlock(xBlockDataBlock);
-                Iterator<BID> xBlockIter = xBlock.getXBlockBids().iterator();
-                while(remaining > 0 && xBlockIter.hasNext()) {
-                    remaining--;
-                }
-                if(xBlockIter.hasNext()) {
-                    if(remaining !=0) {
-                        throw new IllegalStateException();
-                    }
-                    DataBlock answer = bbt.load(xBlockIter.next());
-                    //all blocks but the last must be of maximum size
-                    if((xBlockIter.hasNext() || xxBlockIter.hasNext() ) && answer.getData().size() != 8192 - BlockTrailer.SIZE) {
-                        throw new IllegalStateException();
-                    }
-                    return answer;
-                }
-            }
+        if(!rootBid.isInternal() || dataBlock.isXBLock() || dataBlock.isXXBLock()) {
+            return new NodeDataStream(bbt, rootBid).getBlock(index);
         }
         
         if(dataBlock.isSLBLock()) {
@@ -31,6 +31,7 @@ package com.github.sbridges.pasta.util;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.UUID;
 
 public class ByteUtils {
 
@@ -91,6 +92,20 @@ public class ByteUtils {
         
     }
     
+    /**
+     * read a little endian int starting at index 
+     */
+    public static int bytesToInt(byte[] b, int index) {
+        return bytesToInt(b[index], b[index + 1], b[index + 2], b[index + 3]);
+    }
+    
+    /**
+     * read a little endian unsigned short starting at index 
+     */
+    public static int bytesToUnsignedShort(byte[] b, int index) {
+        return (0xFF & b[index]) | ((0xFF & b[index + 1]) << 8);
+    }
+    
     public static int bytesToInt(byte b1, byte b2, byte b3, byte b4) {
         int answer = 0xFF & b4;
         answer = answer << 8 | (0xFF & b3);
@@ -127,4 +142,20 @@ public class ByteUtils {
     }
     
 
+    /**
+     * Build a UUID from the fields of a GUID.<P>
+     * 
+     * Data1, Data2 and Data3 are stored little endian, 
+     * but Data4 is stored as 8 bytes in order, so data4 must be 
+     * the big endian value of those 8 bytes.<P>
+     * 
+     * https://msdn.microsoft.com/en-us/library/system.guid.tobytearray.aspx
+     */
+    public static UUID guidToUUID(int data1, int data2, int data3, long data4) {
+        long msb = ((long) data1) << 32;
+        msb |= ((long) (data2 & 0xFFFF)) << 16;
+        msb |= (data3 & 0xFFFF);
+        return new UUID(msb, data4);
+    }
+
 }
@@ -29,12 +29,91 @@
 
 package com.github.sbridges.pasta.util;
 
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
 /**
  * https://msdn.microsoft.com/en-us/library/ff385753(v=office.12).aspx
  * 
- * See a version at the end of this file which compiles in clang
+ * The pst crc is the standard reflected CRC-32, but without 
+ * the initial and final inversion.  computeCRC and updateCRC use
+ * java.util.zip.CRC32, which the jvm implements with hardware 
+ * instructions where it can, and correct for the inversions.<P>
+ * 
+ * The table driven version from the spec is kept as computeCRCTable,
+ * see a version at the end of this file which compiles in clang
  */
 public class CRC {
+    
+    //the reflected CRC-32 polynomial
+    private static final int POLY = 0xEDB88320;
+    
+    private CRC() {}
+    
+    public static int computeCRC(byte[] pv) {
+        return computeCRC(pv, 0, pv.length);
+    }
+    
+    public static int computeCRC(byte[] pv, int off, int len) {
+        return updateCRC(0, pv, off, len);
+    }
+    
+    /**
+     * Compute the crc of the remaining bytes of buffer, 
+     * the position of buffer is not changed
+     */
+    public static int computeCRC(ByteBuffer buffer) {
+        return updateCRC(0, buffer);
+    }
+    
+    /**
+     * Continue a crc, dwCRC is the crc of the bytes before off, 
+     * this is the dwCRC argument to ComputeCRC in the spec
+     */
+    public static int updateCRC(int dwCRC, byte[] pv, int off, int len) {
+        CRC32 crc32 = start(dwCRC);
+        crc32.update(pv, off, len);
+        return (int) ~crc32.getValue();
+    }
+    
+    /**
+     * Continue a crc over the remaining bytes of buffer,
+     * the position of buffer is not changed
+     */
+    public static int updateCRC(int dwCRC, ByteBuffer buffer) {
+        CRC32 crc32 = start(dwCRC);
+        crc32.update(buffer.duplicate());
+        return (int) ~crc32.getValue();
+    }
+    
+    /**
+     * Get a CRC32 whose register holds dwCRC.<P>
+     * 
+     * A CRC32 starts with a register of 0xFFFFFFFF, and feeding it 
+     * 4 bytes x leaves the register as shift32(0xFFFFFFFF ^ x), where 
+     * shift32 runs the register over 32 zero bits.  shift32 can be 
+     * inverted a bit at a time, so choose x = 0xFFFFFFFF ^ unshift32(dwCRC).
+     * CRC32 inverts the register in getValue(), so ~getValue() is the
+     * pst crc.
+     */
+    private static CRC32 start(int dwCRC) {
+        int register = dwCRC;
+        for(int i = 0; i < 32; i++) {
+            if(register < 0) {
+                register = ((register ^ POLY) << 1) | 1;
+            } else {
+                register <<= 1;
+            }
+        }
+        int x = ~register;
+        CRC32 answer = new CRC32();
+        answer.update(x);
+        answer.update(x >>> 8);
+        answer.update(x >>> 16);
+        answer.update(x >>> 24);
+        return answer;
+    }
+    
     private static final int[] CrcTableOffset32 =
         {
         0x00000000, 0x77073096, 0xEE0E612C, 0x990951BA, 0x076DC419, 0x706AF48F, 0xE963A535, 0x9E6495A3,
@@ -323,7 +402,10 @@ public class CRC {
         0x2C8E0FFF, 0xE0240F61, 0x6EAB0882, 0xA201081C, 0xA8C40105, 0x646E019B, 0xEAE10678, 0x264B06E6
         };
         
-        public static int computeCRC(byte[] pv)
+        /**
+         * The table driven crc from the spec, slower than computeCRC
+         */
+        static int computeCRCTable(byte[] pv)
         {
            //use long since java ints are unsigned
            long dwCRC = 0; 
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+
+package com.github.sbridges.pasta.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 5.2 Cyclic Encoding
+ * The following algorithm is used for NDB_CRYPT_CYCLIC. 
+ * Data encoded with this method MUST be decoded using the same method. 
+ * The value of dwKey is the lower DWORD of the BID of the block.
+ * Note that the data is encoded or decoded in place.<P>
+ * 
+ * Each byte goes through the three tables of CryptPermute, offset 
+ * by a WORD w which is incremented for every byte.  For a given 
+ * high byte of w the three lookups are a fixed permutation, so 
+ * they are precomputed into 256 tables of 256 bytes, and each 
+ * byte costs one lookup and two adds.
+ */
+public class CryptCyclic {
+
+    //mpbbCyclic[(h << 8) | x] = mpbbI[mpbbS[mpbbR[x] + h] - h]
+    private static final byte[] mpbbCyclic = new byte[256 * 256];
+    static {
+        byte[] mpbbCrypt = CryptPermute.mpbbCrypt;
+        for(int h = 0; h < 256; h++) {
+            for(int x = 0; x < 256; x++) {
+                int b = 0xFF & mpbbCrypt[x];
+                b = 0xFF & mpbbCrypt[256 + (0xFF & (b + h))];
+                b = mpbbCrypt[512 + (0xFF & (b - h))];
+                mpbbCyclic[(h << 8) | x] = (byte) b;
+            }
+        }
+    }
+    
+    private CryptCyclic() {}
+    
+    /**
+     * Decrypt len bytes of data starting at off, in place 
+     * 
+     * @param bid - the bid of the block the data was read from
+     */
+    public static void decrypt(byte[] data, int off, int len, long bid) {
+        crypt(data, off, len, (int) bid);
+    }
+    
+    /**
+     * Encrypt len bytes of data starting at off, in place 
+     * 
+     * @param bid - the bid of the block the data will be written to
+     */
+    public static void encrypt(byte[] data, int off, int len, long bid) {
+        crypt(data, off, len, (int) bid);
+    }
+    
+    /**
+     * Decrypt the remaining bytes of buffer in place,
+     * the position of buffer is not changed 
+     */
+    public static void decrypt(ByteBuffer buffer, long bid) {
+        crypt(buffer, (int) bid);
+    }
+    
+    /**
+     * Encrypt the remaining bytes of buffer in place,
+     * the position of buffer is not changed 
+     */
+    public static void encrypt(ByteBuffer buffer, long bid) {
+        crypt(buffer, (int) bid);
+    }
+    
+    private static void crypt(byte[] data, int off, int len, int dwKey) {
+        if(off < 0 || len < 0 || off + len > data.length) {
+            throw new IndexOutOfBoundsException("off:" + off + " len:" + len + " length:" + data.length);
+        }
+        int w = 0xFFFF & (dwKey ^ (dwKey >>> 16));
+        int i = off;
+        int end = off + len;
+        while(i < end) {
+            //the high byte of w, and so the table, is fixed until the low byte wraps
+            int table = w & 0xFF00;
+            int lo = w & 0xFF;
+            int runEnd = Math.min(end, i + 256 - lo);
+            for(; i < runEnd; i++, lo++) {
+                data[i] = (byte) (mpbbCyclic[table | (0xFF & (data[i] + lo))] - lo);
+            }
+            w = 0xFFFF & (table + 256);
+        }
+    }
+    
+    private static void crypt(ByteBuffer buffer, int dwKey) {
+        if(buffer.hasArray()) {
+            crypt(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), dwKey);
+            return;
+        }
+        //direct buffers, use absolute gets and puts
+        int w = 0xFFFF & (dwKey ^ (dwKey >>> 16));
+        int i = buffer.position();
+        int end = buffer.limit();
+        while(i < end) {
+            int table = w & 0xFF00;
+            int lo = w & 0xFF;
+            int runEnd = Math.min(end, i + 256 - lo);
+            for(; i < runEnd; i++, lo++) {
+                buffer.put(i, (byte) (mpbbCyclic[table | (0xFF & (buffer.get(i) + lo))] - lo));
+            }
+            w = 0xFFFF & (table + 256);
+        }
+    }
+    
+    /**
+     * The algorithm as written in the spec, a lookup in each of the 
+     * three tables per byte, used to check the table driven version
+     */
+    static void cryptReference(byte[] data, int off, int len, int dwKey) {
+        byte[] mpbbCrypt = CryptPermute.mpbbCrypt;
+        int w = 0xFFFF & (dwKey ^ (dwKey >>> 16));
+        for(int i = off; i < off + len; i++) {
+            int b = data[i];
+            b = 0xFF & (b + w);
+            b = mpbbCrypt[b];
+            b = 0xFF & (b + (w >>> 8));
+            b = mpbbCrypt[b + 256];
+            b = 0xFF & (b - (w >>> 8));
+            b = mpbbCrypt[b + 512];
+            b = b - w;
+            data[i] = (byte) b;
+            w = 0xFFFF & (w + 1);
+        }
+    }
+}
@@ -29,6 +29,8 @@
 
 package com.github.sbridges.pasta.util;
 
+import java.nio.ByteBuffer;
+
 /**
  * 5.1 Permutative Encoding
  * The following algorithm is used for NDB_CRYPT_PERMUTE. 
@@ -40,7 +42,13 @@ package com.github.sbridges.pasta.util;
  */
 public class CryptPermute {
     
-        private static final byte[] mpbbCrypt;
+        private CryptPermute() {}
+    
+        //mpbbCrypt is 3 tables of 256 bytes, mpbbR, mpbbS and mpbbI in the spec,
+        //permute encrypts with mpbbR and decrypts with mpbbI
+        static final byte[] mpbbCrypt;
+        private static final int ENCRYPT_OFFSET = 0;
+        private static final int DECRYPT_OFFSET = 512;
         static {
             
             //copied from the spec, 
@@ -152,19 +160,71 @@ public class CryptPermute {
             }
         }
         
+        /**
+         * Decrypt a copy of encrypted 
+         */
         public static byte[] decrypt(byte[] encrypted) {
-            byte[] answer = new byte[encrypted.length];
-            for(int i = 0; i < encrypted.length; i++) {
-                answer[i] = mpbbCrypt[512 + ( 0xFF & encrypted[i])];
-            }
+            byte[] answer = encrypted.clone();
+            decrypt(answer, 0, answer.length);
             return answer;
         }
         
+        /**
+         * Encrypt a copy of plainText 
+         */
         public static byte[] encrypt(byte[] plainText) {
-            byte[] answer = new byte[plainText.length];
-            for(int i = 0; i < plainText.length; i++) {
-                answer[i] = mpbbCrypt[0xFF & plainText[i]];
-            }
+            byte[] answer = plainText.clone();
+            encrypt(answer, 0, answer.length);
             return answer;
         }
+        
+        /**
+         * Decrypt len bytes of data starting at off, in place 
+         */
+        public static void decrypt(byte[] data, int off, int len) {
+            permute(data, off, len, DECRYPT_OFFSET);
+        }
+        
+        /**
+         * Encrypt len bytes of data starting at off, in place 
+         */
+        public static void encrypt(byte[] data, int off, int len) {
+            permute(data, off, len, ENCRYPT_OFFSET);
+        }
+        
+        /**
+         * Decrypt the remaining bytes of buffer in place,
+         * the position of buffer is not changed 
+         */
+        public static void decrypt(ByteBuffer buffer) {
+            permute(buffer, DECRYPT_OFFSET);
+        }
+        
+        /**
+         * Encrypt the remaining bytes of buffer in place,
+         * the position of buffer is not changed 
+         */
+        public static void encrypt(ByteBuffer buffer) {
+            permute(buffer, ENCRYPT_OFFSET);
+        }
+        
+        private static void permute(byte[] data, int off, int len, int tableOffset) {
+            if(off < 0 || len < 0 || off + len > data.length) {
+                throw new IndexOutOfBoundsException("off:" + off + " len:" + len + " length:" + data.length);
+            }
+            for(int i = off; i < off + len; i++) {
+                data[i] = mpbbCrypt[tableOffset + (0xFF & data[i])];
+            }
+        }
+        
+        private static void permute(ByteBuffer buffer, int tableOffset) {
+            if(buffer.hasArray()) {
+                permute(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), tableOffset);
+                return;
+            }
+            //direct buffers, use absolute gets and puts
+            for(int i = buffer.position(); i < buffer.limit(); i++) {
+                buffer.put(i, mpbbCrypt[tableOffset + (0xFF & buffer.get(i))]);
+            }
+        }
 }
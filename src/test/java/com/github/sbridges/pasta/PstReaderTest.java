@@ -35,9 +35,16 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
@@ -45,8 +52,10 @@ import org.junit.Test;
 import com.github.sbridges.pasta.PstReader;
 import com.github.sbridges.pasta.io.PstIo;
 import com.github.sbridges.pasta.model.BID;
+import com.github.sbridges.pasta.model.Verification;
 import com.github.sbridges.pasta.model.ltp.pc.PC;
 import com.github.sbridges.pasta.model.ltp.pc.Property;
+import com.github.sbridges.pasta.model.ltp.pc.PropertyType;
 import com.github.sbridges.pasta.model.ltp.tc.TC;
 import com.github.sbridges.pasta.model.message.EntryId;
 import com.github.sbridges.pasta.model.message.Folder;
@@ -58,7 +67,10 @@ import com.github.sbridges.pasta.model.ndb.BBTEntry;
 import com.github.sbridges.pasta.model.ndb.DataBlock;
 import com.github.sbridges.pasta.model.ndb.NBT;
 import com.github.sbridges.pasta.model.ndb.NBTEntry;
+import com.github.sbridges.pasta.model.ndb.NBTIndex;
+import com.github.sbridges.pasta.model.ndb.NDBCache;
 import com.github.sbridges.pasta.model.ndb.NID;
+import com.github.sbridges.pasta.model.ndb.NidType;
 import com.github.sbridges.pasta.model.ndb.SIBlock;
 import com.github.sbridges.pasta.model.ndb.SIEntry;
 import com.github.sbridges.pasta.model.ndb.SLBlock;
@@ -70,23 +82,189 @@ public class PstReaderTest {
 
     @Test
     public void testReadEnron() throws Exception {
-        read("albert_meyers_000_1_1.pst");
+        read("albert_meyers_000_1_1.pst", PstReaderOptions.defaults());
     }
     
-    private void read(String fileName) throws URISyntaxException, IOException {
-        Path path = Paths.get(PstReaderTest.class.getClassLoader().getResource(fileName).toURI());
-      
-       
+    @Test
+    public void testReadEnronMemoryMapped() throws Exception {
+        read("albert_meyers_000_1_1.pst", PstReaderOptions.defaults().withMemoryMapped(true));
+    }
+    
+    @Test
+    public void testReadEnronUncached() throws Exception {
+        read("albert_meyers_000_1_1.pst", PstReaderOptions.defaults().withCacheSizeBytes(0));
+    }
+    
+    @Test
+    public void testReadEnronIndexedBBT() throws Exception {
+        read("albert_meyers_000_1_1.pst", PstReaderOptions.defaults().withIndexBBT(true));
+    }
+    
+    @Test
+    public void testReadEnronVerifyFirstTouch() throws Exception {
+        read("albert_meyers_000_1_1.pst", PstReaderOptions.defaults()
+                .withCacheSizeBytes(0)
+                .withVerification(Verification.FIRST_TOUCH));
+    }
+    
+    @Test
+    public void testReadEnronVerifyNone() throws Exception {
+        read("albert_meyers_000_1_1.pst", PstReaderOptions.defaults().withVerification(Verification.NONE));
+    }
+    
+    @Test
+    public void testIndexedNBTChildren() throws Exception {
+        Path path = Paths.get(PstReaderTest.class.getClassLoader().getResource("albert_meyers_000_1_1.pst").toURI());
+        try(PstReader reader = new PstReader(path, PstReaderOptions.defaults().withIndexNBT(true))) {
+            validate(reader);
+            NBTIndex index = reader.getNBT().getIndex().get();
+            assertFalse(index.getChildren(InternalNids.NID_ROOT_FOLDER).contains(InternalNids.NID_ROOT_FOLDER));
+            validateChildren(new Folder(reader,  InternalNids.NID_ROOT_FOLDER), index);
+        }
+    }
+    
+    private void validateChildren(Folder folder, NBTIndex index) {
+        Set<Integer> messages = new HashSet<>();
+        for(NID nid : index.getChildren(folder.getNid(), NidType.NID_TYPE_NORMAL_MESSAGE)) {
+            messages.add((int) nid.getNid());
+        }
+        assertEquals(new HashSet<>(folder.getCtTc().getRowIds()), messages);
         
+        List<NID> children = new ArrayList<>();
+        for(Folder child : folder.getChildren()) {
+            children.add(child.getNid());
+        }
+        assertEquals(children, index.getChildren(folder.getNid(), NidType.NID_TYPE_NORMAL_FOLDER));
+        
+        for(Folder child : folder.getChildren()) {
+            validateChildren(child, index);
+        }
+    }
+    
+    @Test
+    public void testPrimitiveAccessors() throws Exception {
+        Path path = Paths.get(PstReaderTest.class.getClassLoader().getResource("albert_meyers_000_1_1.pst").toURI());
         try(PstReader reader = new PstReader(path)) {
+            assertTrue(validatePrimitiveAccessors(reader, new Folder(reader,  InternalNids.NID_ROOT_FOLDER)) > 0);
+        }
+    }
+    
+    /**
+     * @return the number of messages checked
+     */
+    private int validatePrimitiveAccessors(PstReader reader, Folder folder) {
+        int answer = 0;
+        TC tc = folder.getCtTc();
+        for(int rowId : tc.getRowIds()) {
+            Optional<Integer> flags = tc.get(rowId, Property.PidTagMessageFlags);
+            assertEquals(flags.isPresent(), tc.hasValue(rowId, Property.PidTagMessageFlags));
+            flags.ifPresent(f -> assertEquals((int) f, tc.getInt(rowId, Property.PidTagMessageFlags)));
             
-            NamedPropertyLookupMap nplm = new NamedPropertyLookupMap(reader);
+            Optional<Instant> deliveryTime = tc.get(rowId, Property.PidTagMessageDeliveryTime);
+            assertEquals(deliveryTime.isPresent(), tc.hasValue(rowId, Property.PidTagMessageDeliveryTime));
+            deliveryTime.ifPresent(t -> assertEquals(
+                    t.toEpochMilli(), 
+                    PropertyType.fileTimeToEpochMilli(tc.getFileTime(rowId, Property.PidTagMessageDeliveryTime))));
             
-            Set<BID> bids = walkNBT(reader.getNBT(), reader.getBBT());
-            walkBBT(bids, reader.getBBT(), reader.getNBT(), reader.getIo());
+            PC pc = new PC(reader, new NID(rowId));
+            assertEquals((int) pc.load(Property.PidTagMessageFlags), pc.getInt(Property.PidTagMessageFlags));
+            if(pc.containsKey(Property.PidTagMessageDeliveryTime)) {
+                assertEquals(
+                        pc.load(Property.PidTagMessageDeliveryTime).toEpochMilli(), 
+                        PropertyType.fileTimeToEpochMilli(pc.getFileTime(Property.PidTagMessageDeliveryTime)));
+            }
+            answer++;
+        }
+        for(Folder child : folder.getChildren()) {
+            answer += validatePrimitiveAccessors(reader, child);
+        }
+        return answer;
+    }
+    
+    @Test
+    public void testCache() throws Exception {
+        Path path = Paths.get(PstReaderTest.class.getClassLoader().getResource("albert_meyers_000_1_1.pst").toURI());
+        //small enough that the walk must evict
+        long cacheSize = 64 * 1024;
+        try(PstReader reader = new PstReader(path, PstReaderOptions.defaults().withCacheSizeBytes(cacheSize))) {
+            NDBCache cache = reader.getCache();
+            validate(reader);
+            assertTrue(cache.getHitCount() > 0);
+            assertTrue(cache.getMissCount() > 0);
+            assertTrue(cache.getEvictionCount() > 0);
+            assertTrue(cache.getSizeBytes() <= cacheSize);
+            
+            //the root pages are always hot
+            long hits = cache.getHitCount();
+            long misses = cache.getMissCount();
+            assertTrue(reader.getNBT().load(InternalNids.NID_MESSAGE_STORE).isPresent());
+            assertTrue(cache.getHitCount() > hits);
+            
+            cache.clear();
+            assertEquals(0, cache.getEntryCount());
+            assertEquals(0, cache.getSizeBytes());
+            assertTrue(reader.getNBT().load(InternalNids.NID_MESSAGE_STORE).isPresent());
+            assertTrue(cache.getMissCount() > misses);
+        }
         
-            validateMessageStore(reader);
-            validateRootFolder(reader);
+        try(PstReader reader = new PstReader(path, PstReaderOptions.defaults().withCacheSizeBytes(0))) {
+            validate(reader);
+            assertEquals(0, reader.getCache().getHitCount());
+            assertEquals(0, reader.getCache().getEntryCount());
+        }
+    }
+    
+    private void read(String fileName, PstReaderOptions options) throws URISyntaxException, IOException {
+        Path path = Paths.get(PstReaderTest.class.getClassLoader().getResource(fileName).toURI());
+      
+       
+        
+        try(PstReader reader = new PstReader(path, options)) {
+            validate(reader);
+        }
+    }
+    
+    private void validate(PstReader reader) {
+        NamedPropertyLookupMap nplm = new NamedPropertyLookupMap(reader);
+        
+        Set<BID> bids = walkNBT(reader.getNBT(), reader.getBBT());
+        walkBBT(bids, reader.getBBT(), reader.getNBT(), reader.getIo());
+    
+        validateMessageStore(reader);
+        validateRootFolder(reader);
+    }
+    
+    @Test
+    public void testReadEnronConcurrently() throws Exception {
+        for(PstReaderOptions options : new PstReaderOptions[] {
+                PstReaderOptions.defaults(), 
+                PstReaderOptions.defaults().withMemoryMapped(true)}) {
+            Path path = Paths.get(PstReaderTest.class.getClassLoader().getResource("albert_meyers_000_1_1.pst").toURI());
+            try(PstReader reader = new PstReader(path, options)) {
+                ExecutorService executor = Executors.newFixedThreadPool(8);
+                try {
+                    List<Future<?>> futures = new ArrayList<>();
+                    //several full walks, and a task per folder, all sharing one reader
+                    for(int i = 0; i < 4; i++) {
+                        futures.add(executor.submit(() -> validate(reader)));
+                        submitFolders(executor, new Folder(reader,  InternalNids.NID_ROOT_FOLDER), futures);
+                    }
+                    for(Future<?> f : futures) {
+                        f.get();
+                    }
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+        }
+    }
+    
+    private void submitFolders(ExecutorService executor, Folder folder, List<Future<?>> futures) {
+        //folders are not thread safe, read the children before handing folder to another thread
+        List<Folder> children = folder.getChildren();
+        futures.add(executor.submit(() -> validateSingleWithMessages(folder)));
+        for(Folder child : children) {
+            submitFolders(executor, child, futures);
         }
     }
 
@@ -118,15 +296,20 @@ public class PstReaderTest {
     }
     
     public void validateTree(Folder folder) {
-        validateSingle(folder);
+        validateSingleWithMessages(folder);
         for(Folder child : folder.getChildren()) {
             validateTree(child);
         }
+    }
+    
+    private void validateSingleWithMessages(Folder folder) {
+        validateSingle(folder);
         for(Message m : folder.getMessages()) {
             //TODO - validate m.getPc()
-            //it fails currently as some keys can't 
-            //be mapped to properties
+            //it fails currently as some properties have 
+            //types we can't decode, but they can be listed
             assertNotNull(m.getPc().load(Property.PidTagSubjectW));
+            assertEquals(m.getPc().listKeys().size(), m.getPc().listProps().size());
         }
     }
 
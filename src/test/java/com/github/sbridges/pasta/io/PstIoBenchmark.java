@@ -0,0 +1,211 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+
+package com.github.sbridges.pasta.io;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares decoding the primitives of a 512 byte page with the 
+ * allocation free readers against the default (copying) PstIo 
+ * readers.<P>
+ * 
+ * Run the main method, adding -prof gc to the jmh options shows 
+ * the allocation rate of each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PstIoBenchmark {
+
+    private static final int PAGE_SIZE = 512;
+    
+    private PstIo direct;
+    private PstIo copying;
+    
+    @Setup
+    public void setup() {
+        byte[] page = new byte[PAGE_SIZE];
+        new Random(42).nextBytes(page);
+        direct = new InMemoryPstIo(null, page);
+        copying = new CopyingPstIo(new InMemoryPstIo(null, page));
+    }
+    
+    @Benchmark
+    public long readDwDirect() {
+        return readDws(direct);
+    }
+    
+    @Benchmark
+    public long readDwCopying() {
+        return readDws(copying);
+    }
+    
+    @Benchmark
+    public long readWDirect() {
+        return readWs(direct);
+    }
+    
+    @Benchmark
+    public long readWCopying() {
+        return readWs(copying);
+    }
+    
+    @Benchmark
+    public long readLongDirect() {
+        return readLongs(direct);
+    }
+    
+    @Benchmark
+    public long readLongCopying() {
+        return readLongs(copying);
+    }
+    
+    @Benchmark
+    public long readDwPositionalDirect() {
+        return readDwsPositional(direct);
+    }
+    
+    @Benchmark
+    public long readDwPositionalCopying() {
+        return readDwsPositional(copying);
+    }
+    
+    private static long readDws(PstIo io) {
+        io.seek(0);
+        long answer = 0;
+        while(!io.isExhausted()) {
+            answer += io.readDw();
+        }
+        return answer;
+    }
+    
+    private static long readWs(PstIo io) {
+        io.seek(0);
+        long answer = 0;
+        while(!io.isExhausted()) {
+            answer += io.readW();
+        }
+        return answer;
+    }
+    
+    private static long readLongs(PstIo io) {
+        io.seek(0);
+        long answer = 0;
+        while(!io.isExhausted()) {
+            answer += io.readLong();
+        }
+        return answer;
+    }
+    
+    private static long readDwsPositional(PstIo io) {
+        long answer = 0;
+        for(int i = 0; i < PAGE_SIZE; i += 4) {
+            answer += io.readDw(i);
+        }
+        return answer;
+    }
+    
+    /**
+     * Only implements the abstract methods of PstIo, 
+     * so the primitive readers use the default, copying implementations
+     */
+    private static class CopyingPstIo implements PstIo {
+        private final PstIo delegate;
+
+        CopyingPstIo(PstIo delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public PstIo getRoot() {
+            return delegate.getRoot();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public void seek(long position) {
+            delegate.seek(position);
+        }
+
+        @Override
+        public byte[] read(int length) {
+            return delegate.read(length);
+        }
+
+        @Override
+        public byte[] read(long position, int length) {
+            return delegate.read(position, length);
+        }
+
+        @Override
+        public boolean isExhausted() {
+            return delegate.isExhausted();
+        }
+
+        @Override
+        public long getPosition() {
+            return delegate.getPosition();
+        }
+
+        @Override
+        public long size() {
+            return delegate.size();
+        }
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PstIoBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -31,11 +31,24 @@ package com.github.sbridges.pasta.io;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
 import com.github.sbridges.pasta.io.InMemoryPstIo;
+import com.github.sbridges.pasta.util.CRC;
 
 public class PstIoTest {
 
@@ -67,5 +80,167 @@ public class PstIoTest {
                 UUID.fromString("35918bc9-196d-40ea-9779-889d79b753f0").toString(),
                 io.readUUID().toString());
     }
+    
+    @Test
+    public void testSliceIsView() {
+        byte[] bytes = new byte[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        InMemoryPstIo io = new InMemoryPstIo(null, bytes);
+        
+        PstIo slice = io.slice(2, 6);
+        assertEquals(6, slice.size());
+        assertArrayEquals(new byte[] {2, 3}, slice.read(2));
+        
+        PstIo nested = slice.sliceAndSkip(3);
+        assertArrayEquals(new byte[] {4, 5, 6}, nested.read(3));
+        assertTrue(nested.isExhausted());
+        assertEquals(5, slice.getPosition());
+        assertEquals(0, io.getPosition());
+        
+        //slices share bytes with their parent
+        bytes[6] = 42;
+        assertArrayEquals(new byte[] {4, 5, 42}, nested.read(0, 3));
+    }
+    
+    @Test
+    public void testMappedAcrossSegments() throws IOException {
+        byte[] bytes = new byte[1000];
+        new Random(0).nextBytes(bytes);
+        Path file = Files.createTempFile("pasta", ".pst");
+        try {
+            Files.write(file, bytes);
+            //small segments, so reads and slices cross segment boundaries
+            try(MappedPstIo io = new MappedPstIo(file, 64, 16)) {
+                assertEquals(bytes.length, io.size());
+                for(int position = 0; position < bytes.length; position += 7) {
+                    for(int length : new int[] {0, 1, 8, 16, 17, 100}) {
+                        if(position + length > bytes.length) {
+                            continue;
+                        }
+                        byte[] expected = Arrays.copyOfRange(bytes, position, position + length);
+                        assertArrayEquals(expected, io.read(position, length));
+                        
+                        PstIo slice = io.slice(position, length);
+                        assertEquals(length, slice.size());
+                        assertArrayEquals(expected, slice.read(length));
+                        assertTrue(slice.isExhausted());
+                    }
+                }
+                
+                io.seek(60);
+                assertArrayEquals(Arrays.copyOfRange(bytes, 60, 70), io.read(10));
+                assertEquals(70, io.getPosition());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
 
+    @Test
+    public void testPrimitiveReaders() throws IOException {
+        byte[] bytes = new byte[300];
+        new Random(1).nextBytes(bytes);
+        
+        assertPrimitiveReaders(bytes, new InMemoryPstIo(null, bytes));
+        assertPrimitiveReaders(bytes, new ByteBufferPstIo(null, ByteBuffer.wrap(bytes)));
+        
+        byte[] padded = new byte[bytes.length + 5];
+        System.arraycopy(bytes, 0, padded, 3, bytes.length);
+        assertPrimitiveReaders(bytes, new InMemoryPstIo(null, padded, 3, bytes.length));
+        assertPrimitiveReaders(bytes, new InMemoryPstIo(null, padded).slice(3, bytes.length));
+        
+        Path file = Files.createTempFile("pasta", ".pst");
+        try {
+            Files.write(file, bytes);
+            //an overlap smaller than a long, so some reads straddle segments
+            try(MappedPstIo io = new MappedPstIo(file, 64, 4)) {
+                assertPrimitiveReaders(bytes, io);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private void assertPrimitiveReaders(byte[] bytes, PstIo io) {
+        ByteBuffer expected = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        for(int position = 0; position + 16 <= bytes.length; position++) {
+            assertEquals(expected.get(position), io.readByte(position));
+            assertEquals(expected.getShort(position) & 0xFFFF, io.readW(position));
+            assertEquals(expected.getInt(position), io.readDw(position));
+            assertEquals(expected.getLong(position), io.readLong(position));
+            
+            io.seek(position);
+            assertEquals(expected.getInt(position), io.readDw());
+            assertEquals(expected.getShort(position + 4) & 0xFFFF, io.readW());
+            assertEquals(expected.get(position + 6), io.readByte());
+            assertEquals(expected.getLong(position + 7), io.readLong());
+            assertEquals(position + 15, io.getPosition());
+            
+            //the positional readers agree with the relative ones
+            io.seek(position);
+            assertEquals(io.readUUID(position), io.readUUID());
+            assertEquals(position + 16, io.getPosition());
+            
+            //the crc is computed over the io's bytes without moving the position
+            assertEquals(CRC.computeCRC(bytes, position, 16), io.computeCRC(position, 16));
+            assertEquals(position + 16, io.getPosition());
+        }
+        
+        io.seek(0);
+        io.readUUID(0);
+        assertEquals(0, io.getPosition());
+        try {
+            io.readDw(bytes.length - 3);
+            fail();
+        } catch(IllegalArgumentException expectedException) {
+            //expected
+        }
+    }
+    
+    @Test
+    public void testConcurrentReads() throws Exception {
+        byte[] bytes = new byte[64 * 1024];
+        new Random(2).nextBytes(bytes);
+        Path file = Files.createTempFile("pasta", ".pst");
+        try {
+            Files.write(file, bytes);
+            try(PstFileIo fileIo = new PstFileIo(file);
+                MappedPstIo mappedIo = new MappedPstIo(file, 4096, 512)) {
+                assertConcurrentReads(bytes, fileIo);
+                assertConcurrentReads(bytes, mappedIo);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+    
+    private void assertConcurrentReads(byte[] bytes, PstIo io) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int t = 0; t < 8; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    for(int i = 0; i < 2000; i++) {
+                        int position = random.nextInt(bytes.length - 512);
+                        int length = random.nextInt(512);
+                        byte[] expected = Arrays.copyOfRange(bytes, position, position + length);
+                        assertArrayEquals(expected, io.read(position, length));
+                        
+                        //each slice has its own cursor
+                        PstIo slice = io.slice(position, length);
+                        assertArrayEquals(expected, slice.read(length));
+                        assertTrue(slice.isExhausted());
+                    }
+                    return null;
+                }));
+            }
+            for(Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class VerifierTest {
+
+    private static final long FILE_SIZE = 1024 * 1024;
+
+    @Test
+    public void testStrict() {
+        assertEquals(3, countVerified(Verifier.STRICT, 3));
+        assertEquals(0, Verifier.STRICT.getVerifiedCount());
+    }
+    
+    @Test
+    public void testNone() {
+        assertEquals(0, countVerified(new Verifier(Verification.NONE, 1, FILE_SIZE), 3));
+    }
+    
+    @Test
+    public void testFirstTouch() {
+        Verifier verifier = new Verifier(Verification.FIRST_TOUCH, 1, FILE_SIZE);
+        assertEquals(1, countVerified(verifier, 3));
+        assertEquals(1, verifier.getVerifiedCount());
+        assertFalse(verifier.shouldVerify(512));
+        assertTrue(verifier.shouldVerify(1024));
+    }
+    
+    @Test
+    public void testFirstTouchOffsets() {
+        Verifier verifier = new Verifier(Verification.FIRST_TOUCH, 1, FILE_SIZE);
+        //neighbouring bits in the same word, and the last bit of the file
+        for(long ib : new long[] {0, 64, 4096 - 64, 4096, FILE_SIZE - 64}) {
+            assertTrue(verifier.shouldVerify(ib));
+            verifier.decode(ib, verify -> null);
+            assertFalse(verifier.shouldVerify(ib));
+        }
+        assertEquals(5, verifier.getVerifiedCount());
+        assertTrue(verifier.shouldVerify(128));
+        
+        //past the end of the file, never remembered
+        verifier.decode(FILE_SIZE, verify -> null);
+        assertTrue(verifier.shouldVerify(FILE_SIZE));
+        assertEquals(5, verifier.getVerifiedCount());
+    }
+    
+    @Test
+    public void testFirstTouchUnaligned() {
+        Verifier verifier = new Verifier(Verification.FIRST_TOUCH, 1, FILE_SIZE);
+        verifier.decode(520, verify -> null);
+        assertTrue(verifier.shouldVerify(520));
+        assertTrue(verifier.shouldVerify(512));
+        assertEquals(0, verifier.getVerifiedCount());
+    }
+    
+    @Test
+    public void testNested() {
+        assertTrue(Verifier.STRICT.decodeNested(verify -> verify));
+        assertTrue(new Verifier(Verification.FIRST_TOUCH, 1, FILE_SIZE).decodeNested(verify -> verify));
+        assertFalse(new Verifier(Verification.NONE, 1, FILE_SIZE).decodeNested(verify -> verify));
+    }
+    
+    @Test
+    public void testFirstTouchFailureNotRemembered() {
+        Verifier verifier = new Verifier(Verification.FIRST_TOUCH, 1, FILE_SIZE);
+        try {
+            verifier.decode(512, verify -> { throw new IllegalStateException("invalid crc"); });
+            fail();
+        } catch(IllegalStateException e) {
+            //expected
+        }
+        assertTrue(verifier.shouldVerify(512));
+        assertEquals(0, verifier.getVerifiedCount());
+    }
+    
+    @Test
+    public void testSampled() {
+        assertEquals(5, countVerified(new Verifier(Verification.SAMPLED, 1, FILE_SIZE), 5));
+        
+        int verified = countVerified(new Verifier(Verification.SAMPLED, 4, FILE_SIZE), 4000);
+        assertTrue("verified:" + verified, verified > 500 && verified < 1500);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSampleRate() {
+        new Verifier(Verification.SAMPLED, 0, FILE_SIZE);
+    }
+    
+    /**
+     * decode the structure at the same offset count times, 
+     * returning how many times it was verified
+     */
+    private static int countVerified(Verifier verifier, int count) {
+        AtomicInteger answer = new AtomicInteger();
+        for(int i = 0; i < count; i++) {
+            verifier.decode(512, verify -> {
+                if(verify) {
+                    answer.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        return answer.get();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ltp.pc;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.github.sbridges.pasta.PstReader;
+import com.github.sbridges.pasta.model.message.Folder;
+import com.github.sbridges.pasta.model.message.InternalNids;
+import com.github.sbridges.pasta.model.message.Message;
+import com.github.sbridges.pasta.model.ndb.NID;
+
+/**
+ * Opens the PC of one message and loads all of its properties.<P>
+ * 
+ * Set the pasta.benchmark.pst system property to the pst file to 
+ * use, the first message found is read.  Run with -prof gc to 
+ * see the bytes allocated per message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PCBenchmark {
+
+    private PstReader reader;
+    private NID messageNid;
+    
+    @Setup
+    public void setup() throws IOException {
+        String pst = System.getProperty("pasta.benchmark.pst");
+        if(pst == null) {
+            throw new IllegalStateException("set pasta.benchmark.pst to the pst file to read");
+        }
+        reader = new PstReader(Paths.get(pst));
+        messageNid = findMessage(new Folder(reader, InternalNids.NID_ROOT_FOLDER));
+        if(messageNid == null) {
+            throw new IllegalStateException("no messages in:" + pst);
+        }
+    }
+    
+    private NID findMessage(Folder folder) {
+        for(Message m : folder.getMessages()) {
+            return m.getNid();
+        }
+        for(Folder child : folder.getChildren()) {
+            NID answer = findMessage(child);
+            if(answer != null) {
+                return answer;
+            }
+        }
+        return null;
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+    }
+    
+    @Benchmark
+    public void loadAllProperties(Blackhole bh) {
+        PC pc = new PC(reader, messageNid);
+        for(byte[] key : pc.listKeys()) {
+            bh.consume(pc.load(key));
+        }
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PCBenchmark.class.getSimpleName())
+                .jvmArgsAppend("-Dpasta.benchmark.pst=" + System.getProperty("pasta.benchmark.pst"))
+                .build()).run();
+    }
+}
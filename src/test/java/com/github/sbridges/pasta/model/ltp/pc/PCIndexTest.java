@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ltp.pc;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import com.github.sbridges.pasta.model.BID;
+import com.github.sbridges.pasta.model.ltp.bth.BTH;
+import com.github.sbridges.pasta.model.ltp.hn.HN;
+import com.github.sbridges.pasta.model.ndb.NodeDataStreamTest;
+
+public class PCIndexTest {
+
+    //propId, wPropType, dwValueHnid, sorted as unsigned propIds
+    private static final int[][] RECORDS = {
+        {0x0017, 0x0003, 1},
+        {0x0037, 0x001F, 0x60},
+        {0x0E07, 0x0003, 0x10},
+        {0x0E1B, 0x000B, 1},
+        {0x8005, 0x0003, -7},
+        {0xFFFF, 0x0102, 0},
+    };
+    
+    @Test
+    public void testBuild() {
+        PCIndex index = PCIndex.build(newBTH(RECORDS));
+        assertEquals(RECORDS.length, index.size());
+        for(int i = 0; i < RECORDS.length; i++) {
+            short propId = (short) RECORDS[i][0];
+            assertEquals(i, index.indexOf(propId));
+            assertTrue(index.contains(propId));
+            assertEquals(propId, index.getPropId(i));
+            assertEquals((short) RECORDS[i][1], index.getPropType(i));
+            assertEquals(RECORDS[i][2], index.getValueHnid(i));
+        }
+    }
+    
+    @Test
+    public void testMissing() {
+        PCIndex index = PCIndex.build(newBTH(RECORDS));
+        assertEquals(-1, index.indexOf((short) 0));
+        assertEquals(-1, index.indexOf((short) 0x0018));
+        assertEquals(-1, index.indexOf((short) 0x8000));
+        assertEquals(-1, index.indexOf((short) 0xFFFE));
+        assertFalse(index.contains((short) 0x7FFF));
+    }
+    
+    @Test
+    public void testEmpty() {
+        PCIndex index = PCIndex.build(newBTH(new int[0][]));
+        assertEquals(0, index.size());
+        assertEquals(-1, index.indexOf((short) 0x0017));
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testUnsorted() {
+        PCIndex.build(newBTH(new int[][] {RECORDS[4], RECORDS[0]}));
+    }
+    
+    /**
+     * A BTH for a PC, with a 2 byte key and 6 byte data 
+     */
+    static BTH newBTH(int[][] records) {
+        ByteBuffer buffer = ByteBuffer.allocate(8 * records.length).order(ByteOrder.LITTLE_ENDIAN);
+        for(int[] record : records) {
+            buffer.putShort((short) record[0]);
+            buffer.putShort((short) record[1]);
+            buffer.putInt(record[2]);
+        }
+        NodeDataStreamTest.TestFile file = new NodeDataStreamTest.TestFile();
+        file.addBTH(4, 0xBC, 2, 6, buffer.array());
+        HN hn = new HN(file.toBBT(), new BID(4));
+        return new BTH(hn, hn.getHidUserRoot());
+    }
+}
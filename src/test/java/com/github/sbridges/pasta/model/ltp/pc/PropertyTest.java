@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ltp.pc;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class PropertyTest {
+
+    @Test
+    public void testKnown() {
+        assertSame(Property.PidTagMessageFlags, Property.fromCode((short) 0x0E07));
+        assertSame(Property.PidTagMessageFlags, Property.fromTag((short) 0x0E07, (short) 0x0003));
+        assertTrue(Property.PidTagMessageFlags.isKnown());
+        
+        assertSame(PropertyType.PtypInteger32, PropertyType.fromCode((short) 0x0003));
+        assertSame(PropertyType.PtypMultipleInteger32, PropertyType.fromCode((short) 0x1003));
+        assertTrue(PropertyType.PtypInteger32.isKnown());
+    }
+    
+    @Test
+    public void testUnknownProperty() {
+        //a named property, these are mapped per file
+        Property<?> p = Property.fromTag((short) 0x8005, (short) 0x0003);
+        assertFalse(p.isKnown());
+        assertEquals((short) 0x8005, p.getCode());
+        assertSame(PropertyType.PtypInteger32, p.getType());
+        
+        Property<?> untyped = Property.fromCode((short) 0x8005);
+        assertFalse(untyped.isKnown());
+        assertEquals((short) 0x8005, untyped.getCode());
+        assertEquals(0, untyped.getType().getCode());
+    }
+    
+    @Test
+    public void testUnknownType() {
+        //PtypMultipleString
+        PropertyType<?> type = PropertyType.fromCode((short) 0x101F);
+        assertFalse(type.isKnown());
+        assertEquals(0x101F, type.getCode());
+        assertSame(type, PropertyType.fromCode((short) 0x101F));
+        
+        PropertyType<?> high = PropertyType.fromCode((short) 0xFFFF);
+        assertFalse(high.isKnown());
+        assertEquals((short) 0xFFFF, (short) high.getCode());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ltp.tc;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.github.sbridges.pasta.model.BID;
+import com.github.sbridges.pasta.model.ltp.bth.BTH;
+import com.github.sbridges.pasta.model.ltp.hn.HN;
+import com.github.sbridges.pasta.model.ndb.NodeDataStreamTest;
+
+public class RowIndexTest {
+
+    //dwRowID, dwRowIndex, sorted as unsigned row ids
+    private static final int[][] RECORDS = {
+        {0x0004, 2},
+        {0x2024, 0},
+        {0x8022, 4},
+        {0x200024, 1},
+        {0x80000004, 3},
+    };
+    
+    @Test
+    public void testBuild() {
+        RowIndex index = new RowIndex(newBTH(RECORDS));
+        assertEquals(RECORDS.length, index.size());
+        assertEquals(Arrays.asList(0x0004, 0x2024, 0x8022, 0x200024, 0x80000004), index.getRowIds());
+        for(int[] record : RECORDS) {
+            assertTrue(index.contains(record[0]));
+            assertEquals(record[1], index.getRowIndex(record[0]));
+        }
+    }
+    
+    @Test
+    public void testMatrixOrder() {
+        RowIndex index = new RowIndex(newBTH(RECORDS));
+        assertEquals(Arrays.asList(0x2024, 0x200024, 0x0004, 0x80000004, 0x8022), index.getRowIdsInMatrixOrder());
+        for(int i = 0; i < index.size(); i++) {
+            assertEquals(i, index.getMatrixRowIndex(i));
+            assertEquals(index.getRowIndex(index.getMatrixRowId(i)), i);
+        }
+    }
+    
+    @Test
+    public void testMissing() {
+        RowIndex index = new RowIndex(newBTH(RECORDS));
+        assertFalse(index.contains(0));
+        assertFalse(index.contains(0x8023));
+        assertFalse(index.contains(0xFFFFFFFF));
+        try {
+            index.getRowIndex(0x8023);
+            fail();
+        } catch(IllegalStateException e) {
+            //expected
+        }
+    }
+    
+    @Test
+    public void testEmpty() {
+        RowIndex index = new RowIndex(newBTH(new int[0][]));
+        assertEquals(0, index.size());
+        assertTrue(index.getRowIds().isEmpty());
+        assertFalse(index.contains(0x2024));
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testUnsorted() {
+        new RowIndex(newBTH(new int[][] {RECORDS[4], RECORDS[0]}));
+    }
+    
+    /**
+     * A BTH for a RowIndex, with a 4 byte key and 4 byte data 
+     */
+    private static BTH newBTH(int[][] records) {
+        ByteBuffer buffer = ByteBuffer.allocate(8 * records.length).order(ByteOrder.LITTLE_ENDIAN);
+        for(int[] record : records) {
+            buffer.putInt(record[0]);
+            buffer.putInt(record[1]);
+        }
+        NodeDataStreamTest.TestFile file = new NodeDataStreamTest.TestFile();
+        file.addBTH(4, 0x7C, 4, 4, buffer.array());
+        HN hn = new HN(file.toBBT(), new BID(4));
+        return new BTH(hn, hn.getHidUserRoot());
+    }
+}
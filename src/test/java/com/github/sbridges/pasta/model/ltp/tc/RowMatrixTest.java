@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ltp.tc;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.sbridges.pasta.io.InMemoryPstIo;
+import com.github.sbridges.pasta.model.BID;
+import com.github.sbridges.pasta.model.ndb.BTPage;
+import com.github.sbridges.pasta.model.ndb.NDBCache;
+import com.github.sbridges.pasta.model.ndb.NodeDataStream;
+import com.github.sbridges.pasta.model.ndb.NodeDataStreamTest;
+
+public class RowMatrixTest {
+
+    private static final int FULL = BTPage.BLOCK_MAX_SIZE_BYTES;
+    private static final int ROW_SIZE = 100;
+    //rows do not span blocks, so each full block has 76 unused bytes
+    private static final int ROWS_PER_BLOCK = FULL / ROW_SIZE;
+    //the test file holds a single BBT leaf page, of at most 20 entries
+    private static final int BLOCKS = 18;
+    private static final int ROWS = ROWS_PER_BLOCK * (BLOCKS - 1) + 10;
+    
+    @Test
+    public void testRows() {
+        NodeDataStream stream = newStream(new NDBCache(0));
+        RowMatrix matrix = new RowMatrix(stream, ROW_SIZE);
+        assertEquals(ROWS_PER_BLOCK, matrix.getRowsPerBlock());
+        
+        for(int row = 0; row < ROWS; row++) {
+            long position = (long) (row / ROWS_PER_BLOCK) * FULL + (row % ROWS_PER_BLOCK) * ROW_SIZE;
+            assertArrayEquals("row:" + row, 
+                    stream.read(position, ROW_SIZE), 
+                    matrix.getRow(row).read(0, ROW_SIZE));
+        }
+    }
+    
+    @Test
+    public void testRandomAccessReadsEachBlockOnce() {
+        NDBCache cache = new NDBCache(1024 * 1024);
+        RowMatrix matrix = new RowMatrix(newStream(cache), ROW_SIZE);
+        long misses = cache.getMissCount();
+        
+        Random random = new Random(42);
+        for(int i = 0; i < 5000; i++) {
+            matrix.getRow(random.nextInt(ROWS));
+        }
+        //the blocks are held by the reader's cache, whatever order the rows are read in
+        assertEquals(BLOCKS, cache.getMissCount() - misses);
+    }
+    
+    @Test
+    public void testHeap() {
+        byte[] rows = new byte[ROW_SIZE * 3];
+        new Random(7).nextBytes(rows);
+        RowMatrix matrix = new RowMatrix(new InMemoryPstIo(null, rows), ROW_SIZE);
+        assertEquals(rows[ROW_SIZE * 2 + 5], matrix.getRow(2).readByte(5));
+        assertEquals(ROW_SIZE, matrix.getRow(0).size());
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testPastEnd() {
+        //the last block holds 10 rows
+        new RowMatrix(newStream(new NDBCache(0)), ROW_SIZE).getRow(ROWS);
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testHeapPastEnd() {
+        new RowMatrix(new InMemoryPstIo(null, new byte[ROW_SIZE * 3]), ROW_SIZE).getRow(3);
+    }
+    
+    /**
+     * A stream of BLOCKS blocks in an XBLOCK, the last holding 10 rows 
+     */
+    private static NodeDataStream newStream(NDBCache cache) {
+        NodeDataStreamTest.TestFile file = new NodeDataStreamTest.TestFile();
+        long[] bids = new long[BLOCKS];
+        for(int i = 0; i < BLOCKS; i++) {
+            bids[i] = 4 * (i + 1);
+            file.addDataBlock(bids[i], i + 1 < BLOCKS ? FULL : ROW_SIZE * 10);
+        }
+        long xBid = 4 * (BLOCKS + 1) + 2;
+        file.addXBlock(xBid, 1, (long) FULL * (BLOCKS - 1) + ROW_SIZE * 10, bids);
+        return new NodeDataStream(file.toBBT(cache), new BID(xBid));
+    }
+}
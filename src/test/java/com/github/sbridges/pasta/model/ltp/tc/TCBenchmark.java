@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ltp.tc;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.github.sbridges.pasta.PstReader;
+import com.github.sbridges.pasta.model.ltp.pc.Property;
+import com.github.sbridges.pasta.model.message.Folder;
+import com.github.sbridges.pasta.model.message.InternalNids;
+
+/**
+ * Reads PidTagMessageFlags and PidTagMessageDeliveryTime from every 
+ * row of the largest contents table, boxed and unboxed.<P>
+ * 
+ * Set the pasta.benchmark.pst system property to the pst file to 
+ * use.  Run with -prof gc to see the bytes allocated per table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TCBenchmark {
+
+    private PstReader reader;
+    private TC tc;
+    private int[] rowIds;
+    
+    @Setup
+    public void setup() throws IOException {
+        String pst = System.getProperty("pasta.benchmark.pst");
+        if(pst == null) {
+            throw new IllegalStateException("set pasta.benchmark.pst to the pst file to read");
+        }
+        reader = new PstReader(Paths.get(pst));
+        tc = findLargest(new Folder(reader, InternalNids.NID_ROOT_FOLDER)).getCtTc();
+        if(tc.getRowCount() == 0) {
+            throw new IllegalStateException("no messages in:" + pst);
+        }
+        rowIds = tc.getRowIds().stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    private Folder findLargest(Folder folder) {
+        Folder answer = folder;
+        for(Folder child : folder.getChildren()) {
+            Folder largest = findLargest(child);
+            if(largest.getCtTc().getRowCount() > answer.getCtTc().getRowCount()) {
+                answer = largest;
+            }
+        }
+        return answer;
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+    }
+    
+    @Benchmark
+    public long boxed() {
+        long answer = 0;
+        for(int rowId : rowIds) {
+            Optional<Integer> flags = tc.get(rowId, Property.PidTagMessageFlags);
+            if(flags.isPresent()) {
+                answer += flags.get();
+            }
+            Optional<Instant> deliveryTime = tc.get(rowId, Property.PidTagMessageDeliveryTime);
+            if(deliveryTime.isPresent()) {
+                answer += deliveryTime.get().toEpochMilli();
+            }
+        }
+        return answer;
+    }
+    
+    @Benchmark
+    public long unboxed() {
+        long answer = 0;
+        for(int rowId : rowIds) {
+            if(tc.hasValue(rowId, Property.PidTagMessageFlags)) {
+                answer += tc.getInt(rowId, Property.PidTagMessageFlags);
+            }
+            if(tc.hasValue(rowId, Property.PidTagMessageDeliveryTime)) {
+                answer += tc.getFileTime(rowId, Property.PidTagMessageDeliveryTime);
+            }
+        }
+        return answer;
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TCBenchmark.class.getSimpleName())
+                .jvmArgsAppend("-Dpasta.benchmark.pst=" + System.getProperty("pasta.benchmark.pst"))
+                .build()).run();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ndb;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.github.sbridges.pasta.PstReader;
+import com.github.sbridges.pasta.PstReaderOptions;
+import com.github.sbridges.pasta.model.BID;
+
+/**
+ * Measures the time to open a pst with and without building the 
+ * BBT index, and the cost of looking up every block afterwards.<P>
+ * 
+ * Set the pasta.benchmark.pst system property to the pst file to 
+ * use, large files are the interesting case.  The memory used by 
+ * the index is printed once, before the trial.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class BBTIndexBenchmark {
+
+    @Param({"false", "true"})
+    public boolean indexBBT;
+    
+    private Path path;
+    private PstReader reader;
+    private List<BID> bids;
+    
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String pst = System.getProperty("pasta.benchmark.pst");
+        if(pst == null) {
+            throw new IllegalStateException("set pasta.benchmark.pst to the pst file to read");
+        }
+        path = Paths.get(pst);
+        bids = new ArrayList<>();
+        try(PstReader r = new PstReader(path, options())) {
+            r.getBBT().getIndex().ifPresent(System.out::println);
+            r.getBBT().walkDepthFirst(page -> {
+                if(page.isLeaf()) {
+                    for(BBTEntry e : page.getBBTEntries()) {
+                        bids.add(e.getBRef().getBid());
+                    }
+                }
+            });
+        }
+    }
+    
+    @Setup(Level.Iteration)
+    public void open() throws IOException {
+        reader = new PstReader(path, options());
+    }
+    
+    @TearDown(Level.Iteration)
+    public void close() throws IOException {
+        reader.close();
+    }
+    
+    private PstReaderOptions options() {
+        return PstReaderOptions.defaults().withIndexBBT(indexBBT);
+    }
+    
+    @Benchmark
+    public PstReader openReader() throws IOException {
+        try(PstReader answer = new PstReader(path, options())) {
+            return answer;
+        }
+    }
+    
+    @Benchmark
+    public long findAll() {
+        BBT bbt = reader.getBBT();
+        long answer = 0;
+        for(BID bid : bids) {
+            answer += bbt.find(bid).get().getCb();
+        }
+        return answer;
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BBTIndexBenchmark.class.getSimpleName())
+                .jvmArgsAppend("-Dpasta.benchmark.pst=" + System.getProperty("pasta.benchmark.pst"))
+                .build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ndb;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.github.sbridges.pasta.io.InMemoryPstIo;
+import com.github.sbridges.pasta.model.BCryptMethod;
+import com.github.sbridges.pasta.model.BID;
+import com.github.sbridges.pasta.model.BRef;
+import com.github.sbridges.pasta.model.Page;
+
+public class BBTIndexTest {
+
+    private static final int CHILDREN = 3;
+    private static final int ENTRIES_PER_CHILD = 20;
+    
+    @Test
+    public void testIndexMatchesTree() {
+        BBT bbt = newBBT();
+        assertFalse(bbt.getIndex().isPresent());
+        
+        BBTIndex index = bbt.buildIndex();
+        assertTrue(bbt.getIndex().isPresent());
+        assertEquals(CHILDREN * ENTRIES_PER_CHILD, index.size());
+        assertEquals(index.size() * 20L, index.getSizeBytes());
+        
+        BBT unindexed = newBBT();
+        for(long bid = 0; bid < leafKey(CHILDREN, 0) + 16; bid += 4) {
+            BID b = new BID(bid);
+            assertEquals(
+                    unindexed.find(b).map(BBTEntry::toString), 
+                    bbt.find(b).map(BBTEntry::toString));
+        }
+        for(int child = 0; child < CHILDREN; child++) {
+            for(int i = 0; i < ENTRIES_PER_CHILD; i++) {
+                assertTrue(bbt.find(new BID(leafKey(child, i))).isPresent());
+            }
+        }
+    }
+    
+    private static long leafKey(int child, int i) {
+        return 1024 * (child + 1) + 16 * i;
+    }
+    
+    /**
+     * An intermediate root page at 0, followed by its leaf pages 
+     */
+    private static BBT newBBT() {
+        byte[] file = new byte[Page.SIZE * (CHILDREN + 1)];
+        long[] rootKeys = new long[CHILDREN];
+        for(int child = 0; child < CHILDREN; child++) {
+            long[] keys = new long[ENTRIES_PER_CHILD];
+            for(int i = 0; i < keys.length; i++) {
+                keys[i] = leafKey(child, i);
+            }
+            rootKeys[child] = keys[0];
+            long ib = Page.SIZE * (child + 1);
+            System.arraycopy(BTPageTest.newBBTPageBytes(ib, 0, keys), 0, file, (int) ib, Page.SIZE);
+        }
+        System.arraycopy(BTPageTest.newBBTPageBytes(0, 1, rootKeys), 0, file, 0, Page.SIZE);
+        
+        return new BBT(
+                BCryptMethod.NDB_CRYPT_NONE, 
+                new BRef(new BID(4), 0), 
+                new InMemoryPstIo(null, file));
+    }
+}
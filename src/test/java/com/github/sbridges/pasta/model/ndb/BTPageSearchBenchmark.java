@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ndb;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares looking up every key of a full BTPage with a binary 
+ * search over the keys against the linear scan which decodes 
+ * each entry.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BTPageSearchBenchmark {
+
+    private long[] keys;
+    private BTPage leaf;
+    private BTPage intermediate;
+    
+    @Setup
+    public void setup() {
+        keys = BTPageTest.keys(20);
+        leaf = BTPageTest.newBBTPage(0, keys);
+        intermediate = BTPageTest.newBBTPage(1, keys);
+    }
+    
+    @Benchmark
+    public long findLeafBinary() {
+        long answer = 0;
+        for(long key : keys) {
+            answer += leaf.getBBTEntry(leaf.find(key)).getCb();
+        }
+        return answer;
+    }
+    
+    @Benchmark
+    public long findLeafLinear() {
+        long answer = 0;
+        for(long key : keys) {
+            for(BBTEntry e : leaf.getBBTEntries()) {
+                if(e.getBRef().getBid().getBid() == key) {
+                    answer += e.getCb();
+                    break;
+                }
+            }
+        }
+        return answer;
+    }
+    
+    @Benchmark
+    public long findFloorBinary() {
+        long answer = 0;
+        for(long key : keys) {
+            answer += intermediate.getBTEntry(intermediate.findFloor(key + 1)).getbRef().getIb();
+        }
+        return answer;
+    }
+    
+    @Benchmark
+    public long findFloorLinear() {
+        long answer = 0;
+        for(long key : keys) {
+            BTEntry last = null;
+            for(BTEntry e : intermediate.getBTEntries()) {
+                if(e.getBtkey() > key + 1) {
+                    break;
+                }
+                last = e;
+            }
+            answer += last.getbRef().getIb();
+        }
+        return answer;
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BTPageSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
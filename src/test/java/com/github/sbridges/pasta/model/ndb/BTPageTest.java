@@ -0,0 +1,224 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ndb;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.github.sbridges.pasta.io.InMemoryPstIo;
+import com.github.sbridges.pasta.model.PType;
+import com.github.sbridges.pasta.model.Page;
+import com.github.sbridges.pasta.util.BlockSignature;
+import com.github.sbridges.pasta.util.CRC;
+
+public class BTPageTest {
+
+    private static final long IB = 0x4400;
+    private static final long PAGE_BID = 0x1000;
+    
+    @Test
+    public void testFindLeaf() {
+        long[] keys = keys(20);
+        BTPage page = newBBTPage(0, keys);
+        
+        for(int i = 0; i < keys.length; i++) {
+            assertEquals(keys[i], page.getKey(i));
+            assertEquals(i, page.find(keys[i]));
+            assertEquals(keys[i], page.getBBTEntry(i).getBRef().getBid().getBid());
+            //between keys
+            assertEquals(-1, page.find(keys[i] + 4));
+        }
+        assertEquals(-1, page.find(0));
+        assertEquals(-1, page.find(Long.MAX_VALUE));
+    }
+    
+    @Test
+    public void testFindFloorIntermediate() {
+        for(int count = 1; count <= 20; count++) {
+            long[] keys = keys(count);
+            BTPage page = newBBTPage(1, keys);
+            
+            assertEquals(-1, page.findFloor(keys[0] - 1));
+            for(int i = 0; i < keys.length; i++) {
+                assertEquals(i, page.findFloor(keys[i]));
+                assertEquals(i, page.findFloor(keys[i] + 4));
+                assertEquals(keys[i], page.getBTEntry(i).getBtkey());
+            }
+            assertEquals(count - 1, page.findFloor(Long.MAX_VALUE));
+        }
+    }
+    
+    @Test
+    public void testEmpty() {
+        BTPage page = newBBTPage(0, new long[0]);
+        assertEquals(-1, page.find(8));
+        assertEquals(-1, page.findFloor(8));
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testKeyOutOfBounds() {
+        newBBTPage(0, keys(3)).getKey(3);
+    }
+    
+    @Test
+    public void testBadCrcVerified() {
+        byte[] bytes = newBBTPageBytes(IB, 0, keys(3));
+        //change a key without updating the crc
+        bytes[0]++;
+        try {
+            new BTPage(new Page(new InMemoryPstIo(null, bytes), IB));
+            fail();
+        } catch(IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("invalid crc"));
+        }
+    }
+    
+    @Test
+    public void testBadCrcNotVerified() {
+        byte[] bytes = newBBTPageBytes(IB, 0, keys(3));
+        bytes[0]++;
+        BTPage page = new BTPage(new Page(new InMemoryPstIo(null, bytes), IB, false), false);
+        assertEquals(17, page.getKey(0));
+    }
+    
+    @Test
+    public void testUnsortedIntermediate() {
+        long[] keys = keys(3);
+        keys[2] = keys[0];
+        try {
+            newBBTPage(1, keys);
+            fail();
+        } catch(IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("not sorted"));
+        }
+        
+        Page page = new Page(new InMemoryPstIo(null, newBBTPageBytes(IB, 1, keys)), IB);
+        assertEquals(keys[0], new BTPage(page, false).getKey(2));
+    }
+    
+    @Test
+    public void testDecodedOnConstruction() {
+        long[] keys = keys(5);
+        for(int cLevel = 0; cLevel <= 1; cLevel++) {
+            byte[] bytes = newBBTPageBytes(IB, cLevel, keys);
+            BTPage page = new BTPage(new Page(new InMemoryPstIo(null, bytes), IB));
+            //the page does not read from the io again
+            Arrays.fill(bytes, (byte) 0);
+            
+            assertEquals(keys.length, page.getCEnt());
+            for(int i = 0; i < keys.length; i++) {
+                assertEquals(keys[i], page.getKey(i));
+                if(page.isLeaf()) {
+                    BBTEntry entry = page.getBBTEntry(i);
+                    assertEquals(keys[i], entry.getBRef().getBid().getBid());
+                    assertEquals(IB + Page.SIZE * (i + 1), entry.getBRef().getIb());
+                } else {
+                    assertEquals(PAGE_BID + 4 * (i + 1), page.getChildBRef(i).getBid().getBid());
+                    assertEquals(IB + Page.SIZE * (i + 1), page.getBTEntry(i).getbRef().getIb());
+                }
+            }
+            int count = 0;
+            for(Object entry : page.isLeaf() ? page.getBBTEntries() : page.getBTEntries()) {
+                assertNotNull(entry);
+                count++;
+            }
+            assertEquals(keys.length, count);
+        }
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testChildBRefOfLeaf() {
+        newBBTPage(0, keys(3)).getChildBRef(0);
+    }
+    
+    static long[] keys(int count) {
+        long[] answer = new long[count];
+        for(int i = 0; i < count; i++) {
+            //leave gaps between bids
+            answer[i] = 16 * (i + 1);
+        }
+        return answer;
+    }
+    
+    static BTPage newBBTPage(int cLevel, long[] keys) {
+        return new BTPage(new Page(new InMemoryPstIo(null, newBBTPageBytes(IB, cLevel, keys)), IB));
+    }
+    
+    /**
+     * Build a BBT page to be written at ib, a leaf if cLevel is 0, 
+     * otherwise an intermediate page whose children follow it, 
+     * one page per key.
+     */
+    static byte[] newBBTPageBytes(long ib, int cLevel, long[] keys) {
+        ByteBuffer buffer = ByteBuffer.allocate(Page.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for(int i = 0; i < keys.length; i++) {
+            buffer.position(i * 24);
+            if(cLevel == 0) {
+                //BBTENTRY, BREF then cb, cRef, dwPadding
+                buffer.putLong(keys[i]);
+                buffer.putLong(ib + Page.SIZE * (i + 1));
+                buffer.putShort((short) 100);
+                buffer.putShort((short) 1);
+            } else {
+                //BTENTRY, btkey then BREF
+                buffer.putLong(keys[i]);
+                buffer.putLong(PAGE_BID + 4 * (i + 1));
+                buffer.putLong(ib + Page.SIZE * (i + 1));
+            }
+        }
+        return finishPage(buffer, ib, PType.ptypeBBT, keys.length, 24, cLevel);
+    }
+    
+    /**
+     * Write the page metadata and trailer after the entries in buffer 
+     */
+    static byte[] finishPage(ByteBuffer buffer, long ib, PType pType, int cEnt, int cbEnt, int cLevel) {
+        buffer.position(488);
+        buffer.put((byte) cEnt);
+        buffer.put((byte) (488 / cbEnt));
+        buffer.put((byte) cbEnt);
+        buffer.put((byte) cLevel);
+        
+        buffer.position(496);
+        buffer.put(pType.getCode());
+        buffer.put(pType.getCode());
+        buffer.putShort(BlockSignature.compute(ib, PAGE_BID));
+        byte[] contents = new byte[496];
+        System.arraycopy(buffer.array(), 0, contents, 0, contents.length);
+        buffer.putInt(CRC.computeCRC(contents));
+        buffer.putLong(PAGE_BID);
+        
+        return buffer.array();
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ndb;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.github.sbridges.pasta.io.InMemoryPstIo;
+import com.github.sbridges.pasta.model.BCryptMethod;
+import com.github.sbridges.pasta.model.BID;
+import com.github.sbridges.pasta.model.BRef;
+import com.github.sbridges.pasta.model.PType;
+import com.github.sbridges.pasta.model.Page;
+
+public class BTreeSpliteratorTest {
+
+    //a root with 4 intermediate pages, each with 5 leaves
+    private static final int ROOT_CHILDREN = 4;
+    private static final int INTERMEDIATE_CHILDREN = 5;
+    
+    @Test
+    public void testEntriesInOrder() {
+        TestTree tree = new TestTree();
+        assertEquals(tree.keys, bids(tree.bbt.entries().collect(Collectors.toList())));
+    }
+    
+    @Test
+    public void testSplitsArePrefixes() {
+        TestTree tree = new TestTree();
+        Spliterator<BBTEntry> spliterator = tree.bbt.entries().spliterator();
+        assertEquals(tree.keys, bids(collect(spliterator)));
+    }
+    
+    @Test
+    public void testSplitPartWayThrough() {
+        TestTree tree = new TestTree();
+        Spliterator<BBTEntry> spliterator = tree.bbt.entries().spliterator();
+        List<BBTEntry> answer = new ArrayList<>();
+        for(int i = 0; i < 12; i++) {
+            assertTrue(spliterator.tryAdvance(answer::add));
+        }
+        answer.addAll(collect(spliterator));
+        assertEquals(tree.keys, bids(answer));
+    }
+    
+    @Test
+    public void testParallel() {
+        TestTree tree = new TestTree();
+        assertEquals(tree.keys, bids(tree.bbt.entries().parallel().collect(Collectors.toList())));
+        assertEquals(tree.keys.size(), tree.bbt.entries().parallel().count());
+    }
+    
+    @Test
+    public void testEstimateSize() {
+        TestTree tree = new TestTree();
+        Spliterator<BBTEntry> spliterator = tree.bbt.entries().spliterator();
+        assertTrue(spliterator.estimateSize() > 0);
+        spliterator.forEachRemaining(e -> {});
+        assertEquals(0, spliterator.estimateSize());
+    }
+    
+    @Test
+    public void testWalkVisitsEachPageOnce() {
+        TestTree tree = new TestTree();
+        AtomicInteger pages = new AtomicInteger();
+        tree.bbt.walkDepthFirst(p -> pages.incrementAndGet());
+        assertEquals(1 + ROOT_CHILDREN + ROOT_CHILDREN * INTERMEDIATE_CHILDREN, pages.get());
+    }
+    
+    @Test
+    public void testFindAll() {
+        NDBCache cache = new NDBCache(1024 * 1024);
+        TestTree tree = new TestTree(cache);
+        
+        //every key, in reverse, with misses and a duplicate mixed in
+        List<Long> bids = new ArrayList<>();
+        for(int i = tree.keys.size() - 1; i >= 0; i--) {
+            bids.add(tree.keys.get(i));
+            bids.add(tree.keys.get(i) + 2);
+        }
+        bids.add(0L);
+        bids.add(tree.keys.get(3));
+        bids.add(Long.MAX_VALUE - 3);
+        long[] keys = bids.stream().mapToLong(Long::longValue).toArray();
+        
+        List<Optional<BBTEntry>> found = tree.bbt.findAll(keys);
+        assertEquals(keys.length, found.size());
+        for(int i = 0; i < keys.length; i++) {
+            assertEquals(
+                    "bid:" + keys[i],
+                    tree.keys.contains(keys[i]) ? Optional.of(keys[i]) : Optional.empty(), 
+                    found.get(i).map(e -> e.getBRef().getBid().getBid()));
+        }
+        
+        //each page was read once
+        assertEquals(1 + ROOT_CHILDREN + ROOT_CHILDREN * INTERMEDIATE_CHILDREN, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+    }
+    
+    @Test
+    public void testFindAllIndexed() {
+        TestTree tree = new TestTree();
+        tree.bbt.buildIndex();
+        List<Optional<BBTEntry>> found = tree.bbt.findAll(new BID(tree.keys.get(5)), new BID(2000000));
+        assertEquals((long) tree.keys.get(5), found.get(0).get().getBRef().getBid().getBid());
+        assertFalse(found.get(1).isPresent());
+    }
+    
+    @Test
+    public void testFindAllEmpty() {
+        assertEquals(0, new TestTree().bbt.findAll(new long[0]).size());
+    }
+    
+    @Test
+    public void testRange() {
+        TestTree tree = new TestTree();
+        long lastKey = tree.keys.get(tree.keys.size() - 1);
+        long[][] ranges = {
+            {0, Long.MAX_VALUE},
+            {tree.keys.get(10), tree.keys.get(50)},
+            {tree.keys.get(10) + 1, tree.keys.get(50) + 1},
+            {tree.keys.get(10) - 1, tree.keys.get(11)},
+            {tree.keys.get(3), tree.keys.get(4)},
+            {lastKey, lastKey + 1},
+            {lastKey + 1, Long.MAX_VALUE},
+            {0, tree.keys.get(0)},
+            {tree.keys.get(20), tree.keys.get(20)},
+            {tree.keys.get(20), tree.keys.get(10)},
+        };
+        for(long[] range : ranges) {
+            List<Long> expected = tree.keys.stream()
+                    .filter(k -> k >= range[0] && k < range[1])
+                    .collect(Collectors.toList());
+            String message = range[0] + " " + range[1];
+            assertEquals(message, expected, bids(tree.bbt.entries(range[0], range[1]).collect(Collectors.toList())));
+            assertEquals(message, expected, bids(collect(tree.bbt.entries(range[0], range[1]).spliterator())));
+            assertEquals(message, expected, 
+                    bids(tree.bbt.entries(range[0], range[1]).parallel().collect(Collectors.toList())));
+        }
+    }
+    
+    @Test
+    public void testRangeSkipsPages() {
+        NDBCache cache = new NDBCache(1024 * 1024);
+        TestTree tree = new TestTree(cache);
+        
+        //the entries of one leaf are read through the root and one intermediate page
+        assertEquals(2, tree.bbt.entries(new BID(tree.keys.get(1)), new BID(tree.keys.get(3))).count());
+        assertEquals(3, cache.getMissCount());
+    }
+    
+    /**
+     * Split recursively, the prefix from each split comes first 
+     */
+    private static List<BBTEntry> collect(Spliterator<BBTEntry> spliterator) {
+        List<BBTEntry> answer = new ArrayList<>();
+        Spliterator<BBTEntry> prefix = spliterator.trySplit();
+        if(prefix != null) {
+            answer.addAll(collect(prefix));
+            answer.addAll(collect(spliterator));
+        } else {
+            spliterator.forEachRemaining(answer::add);
+        }
+        return answer;
+    }
+    
+    private static List<Long> bids(List<BBTEntry> entries) {
+        return entries.stream().map(e -> e.getBRef().getBid().getBid()).collect(Collectors.toList());
+    }
+    
+    /**
+     * A 3 level BBT, leaves have a varying number of entries
+     */
+    static class TestTree {
+        private final List<byte[]> pages = new ArrayList<>();
+        private final List<Long> keys = new ArrayList<>();
+        private final BBT bbt;
+        private long nextKey = 4;
+        
+        TestTree() {
+            this(new NDBCache(0));
+        }
+        
+        TestTree(NDBCache cache) {
+            int root = addPage(2);
+            byte[] file = new byte[pages.size() * Page.SIZE];
+            for(int i = 0; i < pages.size(); i++) {
+                System.arraycopy(pages.get(i), 0, file, i * Page.SIZE, Page.SIZE);
+            }
+            bbt = new BBT(
+                    BCryptMethod.NDB_CRYPT_NONE, 
+                    new BRef(new BID(4), root * Page.SIZE), 
+                    new InMemoryPstIo(null, file),
+                    cache);
+        }
+        
+        /**
+         * @return the index of the page
+         */
+        private int addPage(int cLevel) {
+            int index = pages.size();
+            pages.add(null);
+            long ib = index * (long) Page.SIZE;
+            if(cLevel == 0) {
+                long[] leafKeys = new long[3 + (index % 5)];
+                for(int i = 0; i < leafKeys.length; i++) {
+                    leafKeys[i] = nextKey;
+                    keys.add(nextKey);
+                    nextKey += 4;
+                }
+                pages.set(index, BTPageTest.newBBTPageBytes(ib, 0, leafKeys));
+                return index;
+            }
+            
+            int children = cLevel == 2 ? ROOT_CHILDREN : INTERMEDIATE_CHILDREN;
+            ByteBuffer buffer = ByteBuffer.allocate(Page.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for(int i = 0; i < children; i++) {
+                long firstKey = nextKey;
+                int child = addPage(cLevel - 1);
+                //BTENTRY, btkey then BREF
+                buffer.putLong(firstKey);
+                buffer.putLong(4 * (child + 1));
+                buffer.putLong(child * (long) Page.SIZE);
+            }
+            pages.set(index, BTPageTest.finishPage(buffer, ib, PType.ptypeBBT, children, 24, cLevel));
+            return index;
+        }
+    }
+}
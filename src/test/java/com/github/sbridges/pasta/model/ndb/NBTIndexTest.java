@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ndb;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.github.sbridges.pasta.io.InMemoryPstIo;
+import com.github.sbridges.pasta.model.BID;
+import com.github.sbridges.pasta.model.BRef;
+import com.github.sbridges.pasta.model.PType;
+import com.github.sbridges.pasta.model.Page;
+
+public class NBTIndexTest {
+
+    private static final NID ROOT = new NID(0x122);
+    private static final NID FOLDER_1 = new NID(0x8022);
+    private static final NID FOLDER_2 = new NID(0x8042);
+    private static final NID ORPHAN = new NID(0x8062);
+    private static final NID MESSAGE_1 = new NID(0x200024);
+    private static final NID MESSAGE_2 = new NID(0x200044);
+    
+    //nid, nidParent
+    private static final long[][] ENTRIES = {
+        {ROOT.getNid(), ROOT.getNid()},
+        {FOLDER_1.getNid(), ROOT.getNid()},
+        {FOLDER_2.getNid(), ROOT.getNid()},
+        {ORPHAN.getNid(), 0x8082},
+        {MESSAGE_1.getNid(), FOLDER_1.getNid()},
+        {MESSAGE_2.getNid(), FOLDER_1.getNid()},
+    };
+    
+    @Test
+    public void testFind() {
+        NBT nbt = newNBT();
+        NBT unindexed = newNBT();
+        NBTIndex index = nbt.buildIndex();
+        assertEquals(ENTRIES.length, index.size());
+        
+        for(long[] e : ENTRIES) {
+            NID nid = new NID(e[0]);
+            assertEquals(
+                    unindexed.load(nid).get().toString(), 
+                    nbt.load(nid).get().toString());
+        }
+        assertFalse(nbt.load(new NID(0x8082)).isPresent());
+        assertEquals(new BID(8), nbt.load(MESSAGE_1).get().getBidSub().get());
+        assertFalse(nbt.load(MESSAGE_2).get().getBidSub().isPresent());
+    }
+    
+    @Test
+    public void testLoadAll() {
+        NID missing = new NID(0x8082);
+        NID[] nids = {MESSAGE_2, missing, ROOT, MESSAGE_2, FOLDER_1};
+        
+        NBT indexed = newNBT();
+        indexed.buildIndex();
+        for(NBT nbt : Arrays.asList(newNBT(), indexed)) {
+            List<Optional<NBTEntry>> found = nbt.loadAll(nids);
+            assertEquals(nids.length, found.size());
+            for(int i = 0; i < nids.length; i++) {
+                assertEquals(nbt.load(nids[i]).map(NBTEntry::toString), found.get(i).map(NBTEntry::toString));
+            }
+            assertFalse(found.get(1).isPresent());
+        }
+    }
+    
+    @Test
+    public void testChildren() {
+        NBTIndex index = newNBT().buildIndex();
+        
+        //the root folder is its own parent, but not its own child
+        assertEquals(Arrays.asList(FOLDER_1, FOLDER_2), index.getChildren(ROOT));
+        assertEquals(Arrays.asList(FOLDER_1, FOLDER_2), index.getChildren(ROOT, NidType.NID_TYPE_NORMAL_FOLDER));
+        assertEquals(2, index.getChildCount(ROOT));
+        assertEquals(Collections.emptyList(), index.getChildren(ROOT, NidType.NID_TYPE_NORMAL_MESSAGE));
+        assertEquals(Arrays.asList(MESSAGE_1, MESSAGE_2), index.getChildren(FOLDER_1, NidType.NID_TYPE_NORMAL_MESSAGE));
+        assertEquals(2, index.getChildCount(FOLDER_1));
+        assertEquals(Collections.emptyList(), index.getChildren(FOLDER_2));
+        assertEquals(Collections.emptyList(), index.getChildren(new NID(0x8082)));
+        assertEquals(0, index.getChildCount(MESSAGE_1));
+    }
+    
+    @Test
+    public void testEntriesByRange() {
+        NBT nbt = newNBT();
+        assertEquals(
+                Arrays.asList(FOLDER_1, FOLDER_2, ORPHAN), 
+                nbt.entries(FOLDER_1, MESSAGE_1).map(NBTEntry::getNid).collect(Collectors.toList()));
+        assertEquals(0, nbt.entries(MESSAGE_1, FOLDER_1).count());
+    }
+    
+    @Test
+    public void testEntriesByType() {
+        NBT nbt = newNBT();
+        assertEquals(
+                Arrays.asList(MESSAGE_1, MESSAGE_2), 
+                nbt.entries(NidType.NID_TYPE_NORMAL_MESSAGE).map(NBTEntry::getNid).collect(Collectors.toList()));
+        assertEquals(
+                Arrays.asList(ROOT, FOLDER_1, FOLDER_2, ORPHAN), 
+                nbt.entries(NidType.NID_TYPE_NORMAL_FOLDER).map(NBTEntry::getNid).collect(Collectors.toList()));
+        assertEquals(0, nbt.entries(NidType.NID_TYPE_ASSOC_MESSAGE).count());
+    }
+    
+    /**
+     * An NBT with a single leaf page 
+     */
+    private static NBT newNBT() {
+        ByteBuffer buffer = ByteBuffer.allocate(Page.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for(int i = 0; i < ENTRIES.length; i++) {
+            buffer.position(i * 32);
+            buffer.putLong(ENTRIES[i][0]);
+            //bidData
+            buffer.putLong(4 * (i + 1));
+            //bidSub, only for the first message
+            buffer.putLong(ENTRIES[i][0] == MESSAGE_1.getNid() ? 8 : 0);
+            buffer.putInt((int) ENTRIES[i][1]);
+        }
+        byte[] page = BTPageTest.finishPage(buffer, 0, PType.ptypeNBT, ENTRIES.length, 32, 0);
+        return new NBT(new BRef(new BID(4), 0), new InMemoryPstIo(null, page));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ndb;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class NDBCacheTest {
+
+    @Test
+    public void testHitAndMiss() {
+        NDBCache cache = new NDBCache(1024);
+        AtomicInteger loads = new AtomicInteger();
+        
+        assertEquals("a", cache.get(0, 512, () -> {loads.incrementAndGet(); return "a";}));
+        assertEquals("a", cache.get(0, 512, () -> {loads.incrementAndGet(); return "b";}));
+        
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(512, cache.getSizeBytes());
+        assertEquals(1, cache.getEntryCount());
+    }
+    
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        NDBCache cache = new NDBCache(1024);
+        cache.get(0, 512, () -> "a");
+        cache.get(512, 512, () -> "b");
+        //touch a, so b is the eldest
+        cache.get(0, 512, () -> "x");
+        cache.get(1024, 512, () -> "c");
+        
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(1024, cache.getSizeBytes());
+        assertEquals("a", cache.get(0, 512, () -> "x"));
+        assertEquals("c", cache.get(1024, 512, () -> "x"));
+        assertEquals("reloaded", cache.get(512, 512, () -> "reloaded"));
+    }
+    
+    @Test
+    public void testTooLargeNotCached() {
+        NDBCache cache = new NDBCache(1024);
+        cache.get(0, 512, () -> "a");
+        assertEquals("b", cache.get(512, 2048, () -> "b"));
+        
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals("c", cache.get(512, 2048, () -> "c"));
+    }
+    
+    @Test
+    public void testDisabled() {
+        NDBCache cache = new NDBCache(0);
+        assertEquals("a", cache.get(0, 512, () -> "a"));
+        assertEquals("b", cache.get(0, 512, () -> "b"));
+        
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+    
+    @Test
+    public void testClear() {
+        NDBCache cache = new NDBCache(1024);
+        cache.get(0, 512, () -> "a");
+        cache.clear();
+        
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSizeBytes());
+        assertEquals("b", cache.get(0, 512, () -> "b"));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSize() {
+        new NDBCache(-1);
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ndb;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.sbridges.pasta.io.InMemoryPstIo;
+import com.github.sbridges.pasta.model.BCryptMethod;
+import com.github.sbridges.pasta.model.BID;
+import com.github.sbridges.pasta.model.BRef;
+import com.github.sbridges.pasta.model.PType;
+import com.github.sbridges.pasta.model.Page;
+import com.github.sbridges.pasta.util.BlockSignature;
+import com.github.sbridges.pasta.util.CRC;
+
+public class NodeDataStreamTest {
+
+    private static final int FULL = BTPage.BLOCK_MAX_SIZE_BYTES;
+    
+    @Test
+    public void testSingleBlock() {
+        TestFile file = new TestFile();
+        byte[] data = file.addDataBlock(4, 100);
+        BBT bbt = file.toBBT();
+        
+        NodeDataStream stream = new NodeDataStream(bbt, new BID(4));
+        assertEquals(1, stream.getBlockCount());
+        assertEquals(100, stream.size());
+        assertArrayEquals(data, stream.read(0, 100));
+        assertArrayEquals(data, stream.getData().read(0, 100));
+    }
+    
+    @Test
+    public void testXXBlock() {
+        TestFile file = new TestFile();
+        long size = FULL * 2 + 100;
+        byte[] b1 = file.addDataBlock(4, FULL);
+        file.addXBlock(6, 1, FULL * 2, 4, 8);
+        byte[] b2 = file.addDataBlock(8, FULL);
+        file.addXBlock(10, 1, 100, 12);
+        byte[] b3 = file.addDataBlock(12, 100);
+        file.addXBlock(14, 2, size, 6, 10);
+        BBT bbt = file.toBBT();
+        
+        NodeDataStream stream = new NodeDataStream(bbt, new BID(14));
+        assertEquals(3, stream.getBlockCount());
+        assertEquals(size, stream.size());
+        assertEquals(FULL, stream.getBlockOffset(1));
+        assertEquals(0, stream.getBlockIndex(FULL - 1));
+        assertEquals(1, stream.getBlockIndex(FULL));
+        assertEquals(2, stream.getBlockIndex(size - 1));
+        assertArrayEquals(b3, stream.getBlock(2).getData().read(0, 100));
+        
+        byte[] all = concat(b1, b2, b3);
+        assertArrayEquals(all, stream.read(0, (int) size));
+        assertArrayEquals(all, stream.getData().read(0, (int) size));
+        //across both block boundaries
+        assertArrayEquals(
+                Arrays.copyOfRange(all, FULL - 10, FULL * 2 + 10), 
+                stream.read(FULL - 10, FULL + 20));
+        
+        //XBlockUtil agrees
+        for(int i = 0; i < 3; i++) {
+            assertEquals(
+                    stream.getBlock(i).getBlockTrailer().getBid(), 
+                    XBlockUtil.getDataBlock(i, new BID(14), bbt).getBlockTrailer().getBid());
+        }
+    }
+    
+    @Test
+    public void testChannel() throws IOException {
+        TestFile file = new TestFile();
+        byte[] all = concat(
+                file.addDataBlock(4, FULL),
+                file.addDataBlock(8, 100));
+        file.addXBlock(10, 1, FULL + 100, 4, 8);
+        NDBCache cache = new NDBCache(1024 * 1024);
+        NodeDataStream stream = new NodeDataStream(file.toBBT(cache), new BID(10));
+        //the BBT page and the xblock
+        assertEquals(2, cache.getEntryCount());
+        
+        try(SeekableByteChannel channel = stream.newChannel()) {
+            assertEquals(FULL + 100, channel.size());
+            ByteBuffer buffer = ByteBuffer.allocate(20);
+            channel.position(FULL - 10);
+            assertEquals(20, channel.read(buffer));
+            assertArrayEquals(Arrays.copyOfRange(all, FULL - 10, FULL + 10), buffer.array());
+            assertEquals(FULL + 10, channel.position());
+            
+            buffer.clear();
+            channel.position(FULL + 95);
+            assertEquals(5, channel.read(buffer));
+            assertEquals(-1, channel.read(buffer));
+            
+            channel.position(0);
+            buffer = ByteBuffer.allocate(all.length);
+            while(buffer.hasRemaining()) {
+                channel.read(buffer);
+            }
+            assertArrayEquals(all, buffer.array());
+        }
+        
+        //the streamed blocks do not go through the cache
+        assertEquals(2, cache.getEntryCount());
+    }
+    
+    @Test
+    public void testInputStream() throws IOException {
+        TestFile file = new TestFile();
+        byte[] all = concat(
+                file.addDataBlock(4, FULL),
+                file.addDataBlock(8, FULL),
+                file.addDataBlock(12, 1));
+        file.addXBlock(14, 1, FULL * 2 + 1, 4, 8, 12);
+        NodeDataStream stream = new NodeDataStream(file.toBBT(), new BID(14));
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(InputStream in = stream.newInputStream()) {
+            byte[] buffer = new byte[1000];
+            int read;
+            while((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        assertArrayEquals(all, out.toByteArray());
+        
+        try(InputStream in = stream.newInputStream()) {
+            assertEquals(FULL + 5, in.skip(FULL + 5));
+            assertEquals(all[FULL + 5] & 0xFF, in.read());
+        }
+    }
+    
+    @Test(expected = ClosedChannelException.class)
+    public void testClosedChannel() throws IOException {
+        TestFile file = new TestFile();
+        file.addDataBlock(4, 100);
+        SeekableByteChannel channel = new NodeDataStream(file.toBBT(), new BID(4)).newChannel();
+        channel.close();
+        channel.read(ByteBuffer.allocate(1));
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testWrongLcbTotal() {
+        TestFile file = new TestFile();
+        file.addDataBlock(4, FULL);
+        file.addXBlock(6, 1, FULL + 99, 4, 8);
+        file.addDataBlock(8, 100);
+        new NodeDataStream(file.toBBT(), new BID(6));
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testReadPastEnd() {
+        TestFile file = new TestFile();
+        file.addDataBlock(4, 100);
+        new NodeDataStream(file.toBBT(), new BID(4)).read(50, 51);
+    }
+    
+    private static byte[] concat(byte[]... arrays) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for(byte[] a : arrays) {
+            out.write(a, 0, a.length);
+        }
+        return out.toByteArray();
+    }
+    
+    /**
+     * A file with a single leaf BBT page at 0, followed by blocks.
+     * Blocks must be added in bid order. 
+     */
+    public static class TestFile {
+        private final ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+        //bid -> {ib, cb}
+        private final Map<Long, int[]> entries = new LinkedHashMap<>();
+        private final Random random = new Random(42);
+        
+        public byte[] addDataBlock(long bid, int cb) {
+            byte[] data = new byte[cb];
+            random.nextBytes(data);
+            addBlock(bid, data);
+            return data;
+        }
+        
+        public void addXBlock(long bid, int cLevel, long lcbTotal, long... bids) {
+            ByteBuffer buffer = ByteBuffer.allocate(8 + 8 * bids.length).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put((byte) 1);
+            buffer.put((byte) cLevel);
+            buffer.putShort((short) bids.length);
+            buffer.putInt((int) lcbTotal);
+            for(long b : bids) {
+                buffer.putLong(b);
+            }
+            addBlock(bid, buffer.array());
+        }
+        
+        /**
+         * Add a heap on node holding a BTH, in a single block with the HNHDR, 
+         * the BTHHEADER, then one leaf of records, each cbKey + cbEnt bytes.
+         * The BTH's header is the heap's hidUserRoot.
+         */
+        public void addBTH(long bid, int bClientSig, int cbKey, int cbEnt, byte[] records) {
+            //the HNHDR, the BTHHEADER, then the leaf records
+            int ibLeaf = 12 + 8;
+            int ibHnpm = ibLeaf + records.length;
+            ByteBuffer buffer = ByteBuffer.allocate(ibHnpm + 10).order(ByteOrder.LITTLE_ENDIAN);
+            
+            //HNHDR, ibHnpm, bSig, bClientSig, hidUserRoot, rgbFillLevel
+            buffer.putShort((short) ibHnpm);
+            buffer.put((byte) 0xEC);
+            buffer.put((byte) bClientSig);
+            buffer.putInt(1 << 5);
+            buffer.putInt(0);
+            
+            //BTHHEADER, bType, cbKey, cbEnt, bIdxLevels, hidRoot
+            buffer.put((byte) 0xB5);
+            buffer.put((byte) cbKey);
+            buffer.put((byte) cbEnt);
+            buffer.put((byte) 0);
+            buffer.putInt(records.length == 0 ? 0 : 2 << 5);
+            
+            buffer.put(records);
+            
+            //HNPAGEMAP, cAlloc, cFree, rgibAlloc
+            buffer.putShort((short) 2);
+            buffer.putShort((short) 0);
+            buffer.putShort((short) 12);
+            buffer.putShort((short) ibLeaf);
+            buffer.putShort((short) ibHnpm);
+            
+            addBlock(bid, buffer.array());
+        }
+        
+        public void addBlock(long bid, byte[] data) {
+            long ib = Page.SIZE + blocks.size();
+            int size = ((data.length + BlockTrailer.SIZE + 63) / 64) * 64;
+            ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(data);
+            buffer.position(size - BlockTrailer.SIZE);
+            buffer.putShort((short) data.length);
+            buffer.putShort(BlockSignature.compute(ib, bid));
+            buffer.putInt(CRC.computeCRC(data));
+            buffer.putLong(bid);
+            blocks.write(buffer.array(), 0, size);
+            entries.put(bid, new int[] {(int) ib, data.length});
+        }
+        
+        public BBT toBBT() {
+            return toBBT(new NDBCache(0));
+        }
+        
+        public BBT toBBT(NDBCache cache) {
+            ByteBuffer page = ByteBuffer.allocate(Page.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            int i = 0;
+            for(Map.Entry<Long, int[]> e : entries.entrySet()) {
+                page.position(i++ * 24);
+                page.putLong(e.getKey());
+                page.putLong(e.getValue()[0]);
+                page.putShort((short) e.getValue()[1]);
+                page.putShort((short) 1);
+            }
+            byte[] file = concat(
+                    BTPageTest.finishPage(page, 0, PType.ptypeBBT, entries.size(), 24, 0),
+                    blocks.toByteArray());
+            return new BBT(
+                    BCryptMethod.NDB_CRYPT_NONE, 
+                    new BRef(new BID(4), 0), 
+                    new InMemoryPstIo(null, file),
+                    cache);
+        }
+    }
+}
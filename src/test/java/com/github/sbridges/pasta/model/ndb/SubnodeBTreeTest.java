@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.model.ndb;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.github.sbridges.pasta.model.BID;
+
+public class SubnodeBTreeTest {
+
+    //an SIBLOCK with 2 SLBLOCKs
+    private static final long SL_1 = 6;
+    private static final long SL_2 = 10;
+    private static final long SI = 14;
+    private static final int ENTRIES_PER_SL = 5;
+    
+    @Test
+    public void testEntriesInOrder() {
+        SubnodeBTree subnodes = new SubnodeBTree(newBBT(), new BID(SI));
+        List<Long> nids = subnodes.getEntries().stream()
+                .map(e -> e.getNid().getNid())
+                .collect(Collectors.toList());
+        assertEquals(nids(), nids);
+        
+        //the same from the index
+        assertEquals(2 * ENTRIES_PER_SL, subnodes.getIndex().size());
+        assertEquals(nids, subnodes.getEntries().stream()
+                .map(e -> e.getNid().getNid())
+                .collect(Collectors.toList()));
+    }
+    
+    @Test
+    public void testLoad() {
+        SubnodeBTree subnodes = new SubnodeBTree(newBBT(), new BID(SI));
+        for(long nid : nids()) {
+            SLEntry entry = subnodes.load(new NID(nid)).get();
+            assertEquals(nid, entry.getNid().getNid());
+            assertEquals(bidData(nid), entry.getBidData().getBid());
+            assertEquals(nid == nids().get(0) ? new BID(SL_1) : null, entry.getBidSub().orElse(null));
+        }
+        assertFalse(subnodes.load(new NID(nids().get(0) - 0x20)).isPresent());
+        assertFalse(subnodes.load(new NID(nids().get(3) + 0x20)).isPresent());
+        assertFalse(subnodes.load(new NID(Long.MAX_VALUE)).isPresent());
+    }
+    
+    @Test
+    public void testSingleSLBlock() {
+        SubnodeBTree subnodes = new SubnodeBTree(newBBT(), new BID(SL_2));
+        assertEquals(ENTRIES_PER_SL, subnodes.getEntries().size());
+        assertTrue(subnodes.load(new NID(nids().get(ENTRIES_PER_SL))).isPresent());
+        assertFalse(subnodes.load(new NID(nids().get(0))).isPresent());
+    }
+    
+    @Test
+    public void testIndexedOnce() {
+        NDBCache cache = new NDBCache(1024 * 1024);
+        SubnodeBTree subnodes = new SubnodeBTree(newBBT(cache), new BID(SI));
+        subnodes.load(new NID(nids().get(0)));
+        long misses = cache.getMissCount();
+        long hits = cache.getHitCount();
+        for(long nid : nids()) {
+            assertTrue(subnodes.load(new NID(nid)).isPresent());
+        }
+        assertEquals(misses, cache.getMissCount());
+        assertEquals(hits, cache.getHitCount());
+    }
+    
+    private static List<Long> nids() {
+        List<Long> answer = new ArrayList<>();
+        for(int i = 0; i < 2 * ENTRIES_PER_SL; i++) {
+            //leave gaps between nids, the type is LTP
+            answer.add(((2L * i + 1) << 5) | 0x1F);
+        }
+        return answer;
+    }
+    
+    private static long bidData(long nid) {
+        return (nid >>> 5) * 4 + 0x1000;
+    }
+    
+    private static BBT newBBT() {
+        return newBBT(new NDBCache(0));
+    }
+    
+    private static BBT newBBT(NDBCache cache) {
+        List<Long> nids = nids();
+        NodeDataStreamTest.TestFile file = new NodeDataStreamTest.TestFile();
+        file.addBlock(SL_1, slBlock(nids.subList(0, ENTRIES_PER_SL)));
+        file.addBlock(SL_2, slBlock(nids.subList(ENTRIES_PER_SL, nids.size())));
+        
+        ByteBuffer si = newBlock(1, 2, SIEntry.SIZE);
+        si.putLong(nids.get(0));
+        si.putLong(SL_1);
+        si.putLong(nids.get(ENTRIES_PER_SL));
+        si.putLong(SL_2);
+        file.addBlock(SI, si.array());
+        return file.toBBT(cache);
+    }
+    
+    private static byte[] slBlock(List<Long> nids) {
+        ByteBuffer sl = newBlock(0, nids.size(), 24);
+        for(long nid : nids) {
+            sl.putLong(nid);
+            sl.putLong(bidData(nid));
+            //only the first subnode has subnodes of its own
+            sl.putLong(nid == nids().get(0) ? SL_1 : 0);
+        }
+        return sl.array();
+    }
+    
+    private static ByteBuffer newBlock(int cLevel, int cEnt, int cbEnt) {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + cEnt * cbEnt).order(ByteOrder.LITTLE_ENDIAN);
+        //btype, cLevel, cEnt, dwPadding
+        buffer.put((byte) 2);
+        buffer.put((byte) cLevel);
+        buffer.putShort((short) cEnt);
+        buffer.putInt(0);
+        return buffer;
+    }
+}
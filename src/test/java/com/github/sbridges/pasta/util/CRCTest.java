@@ -31,6 +31,9 @@ package com.github.sbridges.pasta.util;
 
 import static org.junit.Assert.*;
 
+import java.nio.ByteBuffer;
+import java.util.Random;
+
 import org.junit.Test;
 
 import com.github.sbridges.pasta.util.CRC;
@@ -116,5 +119,52 @@ public class CRCTest {
                 CRC.computeCRC(data));
     }
     
+    @Test
+    public void testMatchesTable() {
+        Random random = new Random(42);
+        for(int length = 0; length < 100; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            assertEquals(CRC.computeCRCTable(data), CRC.computeCRC(data));
+        }
+        byte[] block = new byte[8176];
+        random.nextBytes(block);
+        assertEquals(CRC.computeCRCTable(block), CRC.computeCRC(block));
+    }
+    
+    @Test
+    public void testRange() {
+        byte[] data = new byte[] {1, 2, 77, 23, 0, 19, 0, 3};
+        assertEquals(205697612, CRC.computeCRC(data, 2, 5));
+    }
+    
+    @Test
+    public void testByteBuffer() {
+        ByteBuffer heap = ByteBuffer.wrap(new byte[] {1, 2, 77, 23, 0, 19, 0, 3});
+        heap.position(2);
+        heap.limit(7);
+        assertEquals(205697612, CRC.computeCRC(heap));
+        //position is not changed
+        assertEquals(2, heap.position());
+        
+        ByteBuffer direct = ByteBuffer.allocateDirect(5);
+        direct.put(new byte[] {77, 23, 0, 19, 0});
+        direct.flip();
+        assertEquals(205697612, CRC.computeCRC(direct));
+    }
+    
+    @Test
+    public void testUpdate() {
+        Random random = new Random(7);
+        byte[] data = new byte[1000];
+        random.nextBytes(data);
+        int expected = CRC.computeCRC(data);
+        for(int split : new int[] {0, 1, 3, 4, 5, 8, 500, 999, 1000}) {
+            int crc = CRC.computeCRC(data, 0, split);
+            assertEquals("split:" + split, expected, CRC.updateCRC(crc, data, split, data.length - split));
+            assertEquals("split:" + split, expected, 
+                    CRC.updateCRC(crc, ByteBuffer.wrap(data, split, data.length - split)));
+        }
+    }
 
 }
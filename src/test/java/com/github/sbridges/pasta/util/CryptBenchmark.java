@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.util;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of decoding a full block, each operation is 8176 bytes.<P>
+ * 
+ * cyclicReference is the algorithm as written in the spec, 
+ * cyclicInPlace the table driven version.
+ * 
+ * The in place versions should do no allocation, compare with 
+ * -prof gc.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CryptBenchmark {
+
+    private static final int SIZE = 8176;
+    private static final int BID = 0x12340;
+    
+    private byte[] data;
+    private ByteBuffer direct;
+    
+    @Setup
+    public void setup() {
+        data = new byte[SIZE];
+        new Random(0).nextBytes(data);
+        direct = ByteBuffer.allocateDirect(SIZE);
+        direct.put(data);
+        direct.flip();
+    }
+    
+    @Benchmark
+    public byte[] permuteCopy() {
+        return CryptPermute.decrypt(data);
+    }
+    
+    @Benchmark
+    public byte[] permuteInPlace() {
+        CryptPermute.decrypt(data, 0, data.length);
+        return data;
+    }
+    
+    @Benchmark
+    public ByteBuffer permuteDirectBuffer() {
+        CryptPermute.decrypt(direct);
+        return direct;
+    }
+    
+    @Benchmark
+    public byte[] cyclicReference() {
+        CryptCyclic.cryptReference(data, 0, data.length, BID);
+        return data;
+    }
+    
+    @Benchmark
+    public byte[] cyclicInPlace() {
+        CryptCyclic.decrypt(data, 0, data.length, BID);
+        return data;
+    }
+    
+    @Benchmark
+    public ByteBuffer cyclicDirectBuffer() {
+        CryptCyclic.decrypt(direct, BID);
+        return direct;
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CryptBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
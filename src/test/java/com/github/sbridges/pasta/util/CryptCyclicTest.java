@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 Sean Bridges. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ * 
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY Sean Bridges ''AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * 
+ * 
+ */
+package com.github.sbridges.pasta.util;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.sbridges.pasta.model.BCryptMethod;
+import com.github.sbridges.pasta.model.BID;
+
+public class CryptCyclicTest {
+
+    //w starts at 0xFFFE for this key, so it wraps
+    private static final int WRAPPING_KEY = 0x0000FFFE;
+    
+    @Test
+    public void testMatchesReference() {
+        Random r = new Random(1);
+        for(int key : new int[] {0, 1, 0x12345678, -1, WRAPPING_KEY, 0x01000000}) {
+            byte[] orig = new byte[1000];
+            r.nextBytes(orig);
+            
+            byte[] expected = orig.clone();
+            CryptCyclic.cryptReference(expected, 0, expected.length, key);
+            byte[] actual = orig.clone();
+            CryptCyclic.decrypt(actual, 0, actual.length, key);
+            assertArrayEquals("key:" + key, expected, actual);
+        }
+    }
+    
+    @Test
+    public void testRoundTrip() {
+        byte[] orig = new byte[8176];
+        new Random(2).nextBytes(orig);
+        byte[] data = orig.clone();
+        
+        CryptCyclic.encrypt(data, 0, data.length, 0x1234);
+        assertFalse(Arrays.equals(orig, data));
+        CryptCyclic.decrypt(data, 0, data.length, 0x1234);
+        assertArrayEquals(orig, data);
+    }
+    
+    @Test
+    public void testKeyIsLowerDword() {
+        byte[] orig = new byte[100];
+        new Random(3).nextBytes(orig);
+        byte[] low = orig.clone();
+        CryptCyclic.decrypt(low, 0, low.length, 0x1234);
+        byte[] high = orig.clone();
+        CryptCyclic.decrypt(high, 0, high.length, 0x7700000000001234L);
+        assertArrayEquals(low, high);
+    }
+    
+    @Test
+    public void testRange() {
+        byte[] orig = new byte[100];
+        new Random(4).nextBytes(orig);
+        byte[] data = orig.clone();
+        CryptCyclic.decrypt(data, 10, 50, WRAPPING_KEY);
+        
+        byte[] expected = orig.clone();
+        CryptCyclic.cryptReference(expected, 10, 50, WRAPPING_KEY);
+        assertArrayEquals(expected, data);
+    }
+    
+    @Test
+    public void testByteBuffers() {
+        byte[] orig = new byte[300];
+        new Random(5).nextBytes(orig);
+        byte[] expected = orig.clone();
+        CryptCyclic.cryptReference(expected, 0, expected.length, WRAPPING_KEY);
+        
+        ByteBuffer heap = ByteBuffer.wrap(orig.clone());
+        CryptCyclic.decrypt(heap, WRAPPING_KEY);
+        assertEquals(0, heap.position());
+        assertArrayEquals(expected, heap.array());
+        
+        ByteBuffer direct = ByteBuffer.allocateDirect(orig.length);
+        direct.put(orig);
+        direct.flip();
+        CryptCyclic.decrypt(direct, WRAPPING_KEY);
+        byte[] actual = new byte[orig.length];
+        direct.get(actual);
+        assertArrayEquals(expected, actual);
+    }
+    
+    @Test
+    public void testCryptMethod() {
+        byte[] orig = new byte[64];
+        new Random(6).nextBytes(orig);
+        byte[] data = orig.clone();
+        BID bid = new BID(0x1234);
+        
+        BCryptMethod.NDB_CRYPT_CYCLIC.encrypt(data, 0, data.length, bid);
+        byte[] expected = orig.clone();
+        CryptCyclic.cryptReference(expected, 0, expected.length, 0x1234);
+        assertArrayEquals(expected, data);
+        
+        BCryptMethod.NDB_CRYPT_CYCLIC.decrypt(data, 0, data.length, bid);
+        assertArrayEquals(orig, data);
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testInvalidRange() {
+        CryptCyclic.decrypt(new byte[10], 5, 6, 0);
+    }
+}
@@ -31,6 +31,8 @@ package com.github.sbridges.pasta.util;
 
 import static org.junit.Assert.*;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Random;
 
 import org.junit.Test;
@@ -72,5 +74,62 @@ public class CryptPermuteTest {
         assertArrayEquals(orig, enc);
     }
     
+    @Test
+    public void testInPlaceRange() {
+        byte[] orig = new byte[100];
+        new Random(1).nextBytes(orig);
+        byte[] data = orig.clone();
+        
+        CryptPermute.decrypt(data, 10, 50);
+        byte[] expected = orig.clone();
+        System.arraycopy(CryptPermute.decrypt(Arrays.copyOfRange(orig, 10, 60)), 0, expected, 10, 50);
+        assertArrayEquals(expected, data);
+        
+        CryptPermute.encrypt(data, 10, 50);
+        assertArrayEquals(orig, data);
+    }
+    
+    @Test
+    public void testHeapByteBuffer() {
+        byte[] orig = new byte[100];
+        new Random(2).nextBytes(orig);
+        
+        //a slice, so the array offset is not 0
+        ByteBuffer buffer = ByteBuffer.wrap(orig.clone(), 5, 90).slice();
+        buffer.position(3);
+        CryptPermute.decrypt(buffer);
+        assertEquals(3, buffer.position());
+        
+        byte[] expected = orig.clone();
+        System.arraycopy(CryptPermute.decrypt(Arrays.copyOfRange(orig, 8, 95)), 0, expected, 8, 87);
+        assertArrayEquals(expected, buffer.array());
+        
+        CryptPermute.encrypt(buffer);
+        assertArrayEquals(orig, buffer.array());
+    }
+    
+    @Test
+    public void testDirectByteBuffer() {
+        byte[] orig = new byte[1025];
+        new Random(3).nextBytes(orig);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(orig.length);
+        buffer.put(orig);
+        buffer.flip();
+        
+        CryptPermute.decrypt(buffer);
+        byte[] decrypted = new byte[orig.length];
+        buffer.duplicate().get(decrypted);
+        assertArrayEquals(CryptPermute.decrypt(orig), decrypted);
+        
+        CryptPermute.encrypt(buffer);
+        byte[] roundTrip = new byte[orig.length];
+        buffer.get(roundTrip);
+        assertArrayEquals(orig, roundTrip);
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testInvalidRange() {
+        CryptPermute.decrypt(new byte[10], 5, 6);
+    }
 
 }